@@ -0,0 +1,16 @@
+package com.backend.IMonitoring.config;
+
+import com.backend.IMonitoring.service.DailyUsageRollupService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// El reporte de uso de espacios lee solo classroom_daily_usage; si la tabla está vacía se construye al arrancar
+@Configuration
+public class DailyUsageRollupInitializer {
+
+    @Bean
+    CommandLineRunner backfillDailyUsage(DailyUsageRollupService dailyUsageRollupService) {
+        return args -> dailyUsageRollupService.backfillIfEmpty();
+    }
+}
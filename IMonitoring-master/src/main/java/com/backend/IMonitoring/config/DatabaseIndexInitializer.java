@@ -0,0 +1,19 @@
+package com.backend.IMonitoring.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Índices que @Table(indexes) no puede declarar (p. ej. GIN sobre jsonb); se crean de forma idempotente al arrancar
+@Configuration
+public class DatabaseIndexInitializer {
+
+    @Bean
+    CommandLineRunner createSpecialIndexes(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            // Soporta las consultas por clave (@@ exists, ?) y contención (@>) sobre classroom.resources
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_classroom_resources_gin ON classroom USING GIN (resources)");
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.backend.IMonitoring.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Un hilo virtual por reporte; propaga el usuario autenticado (la caché de reportes lo usa como alcance)
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService reportExecutor() {
+        return new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    // Generación de libros Excel: pocos hilos y cola acotada; al llenarse se rechazan nuevos trabajos
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService exportExecutor(@Value("${app.exports.max-concurrent:2}") int maxConcurrent,
+                                          @Value("${app.exports.queue-capacity:20}") int queueCapacity) {
+        return new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("schedule-export-", 0).factory());
+    }
+
+    // Hash de contraseñas en cargas masivas: BCrypt es intensivo en CPU, un hilo por núcleo
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService passwordHashExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("password-hash-", 0).factory());
+    }
+
+    // Correos de bienvenida: un solo hilo que envía en orden; si la cola se llena se descartan con aviso
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService mailExecutor(@Value("${app.mail.queue-capacity:10000}") int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("welcome-mail-", 0).factory());
+    }
+
+    // Cargas masivas de Excel: una a la vez por defecto (cada una abre su propia transacción larga)
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService importExecutor(@Value("${app.imports.max-concurrent:1}") int maxConcurrent,
+                                          @Value("${app.imports.queue-capacity:10}") int queueCapacity) {
+        return new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("bulk-import-", 0).factory());
+    }
+
+    // Respuestas asíncronas de Spring MVC (StreamingResponseBody). Los ExecutorService de esta clase desactivan el
+    // applicationTaskExecutor de Boot y sin este pool MVC usaría un hilo nuevo por petición sin límite.
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(@Value("${app.web.async.max-threads:16}") int maxThreads,
+                                                   @Value("${app.web.async.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxThreads);
+        executor.setMaxPoolSize(maxThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+}
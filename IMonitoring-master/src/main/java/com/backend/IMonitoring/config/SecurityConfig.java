@@ -1,6 +1,7 @@
 package com.backend.IMonitoring.config;
 
 import com.backend.IMonitoring.model.Rol;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +38,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Rutas públicas (Swagger, Auth, etc.)
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Respuestas en streaming: el despacho asíncrono ya fue autorizado en la petición original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/auth/**",
                                 "/v3/api-docs/**",
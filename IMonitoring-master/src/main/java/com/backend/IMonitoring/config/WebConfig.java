@@ -0,0 +1,25 @@
+package com.backend.IMonitoring.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableSpringDataWebSupport(pageSerializationMode = EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO)
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    // Los volcados en streaming pueden tardar más que el timeout asíncrono por defecto del contenedor
+    private static final long ASYNC_TIMEOUT_MS = 10 * 60 * 1000L;
+
+    private final ThreadPoolTaskExecutor mvcAsyncExecutor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(ASYNC_TIMEOUT_MS);
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+}
@@ -1,10 +1,14 @@
 package com.backend.IMonitoring.controller;
 
 import com.backend.IMonitoring.dto.BuildingRequestDTO;
+import com.backend.IMonitoring.dto.BuildingSummaryDTO;
+import com.backend.IMonitoring.dto.ClassroomDTO;
 import com.backend.IMonitoring.model.Building;
 import com.backend.IMonitoring.service.BuildingService;
+import com.backend.IMonitoring.service.ClassroomService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -19,34 +23,43 @@ import java.util.List;
 public class BuildingController {
 
     private final BuildingService buildingService;
+    private final ClassroomService classroomService;
 
     @GetMapping
-    public ResponseEntity<List<Building>> getAllBuildings() {
-        return ResponseEntity.ok(buildingService.getAllBuildings());
+    public ResponseEntity<List<BuildingSummaryDTO>> getAllBuildings() {
+        return ResponseEntity.ok(buildingService.getAllBuildingSummaries());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Building> getBuildingById(@PathVariable String id) {
-        return ResponseEntity.ok(buildingService.getBuildingById(id));
+    public ResponseEntity<BuildingSummaryDTO> getBuildingById(@PathVariable String id) {
+        return ResponseEntity.ok(buildingService.getBuildingSummaryById(id));
+    }
+
+    @GetMapping("/{id}/classrooms")
+    public ResponseEntity<Page<ClassroomDTO>> getBuildingClassrooms(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(classroomService.getClassroomsByBuilding(id, page, size));
     }
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Building> createBuilding(@Valid @RequestBody BuildingRequestDTO buildingRequestDTO) {
+    public ResponseEntity<BuildingSummaryDTO> createBuilding(@Valid @RequestBody BuildingRequestDTO buildingRequestDTO) {
         Building createdBuilding = buildingService.createBuilding(buildingRequestDTO);
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
                 .path("/{id}")
                 .buildAndExpand(createdBuilding.getId())
                 .toUri();
-        return ResponseEntity.created(location).body(createdBuilding);
+        return ResponseEntity.created(location).body(buildingService.getBuildingSummaryById(createdBuilding.getId()));
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Building> updateBuilding(@PathVariable String id, @Valid @RequestBody BuildingRequestDTO buildingRequestDTO) {
+    public ResponseEntity<BuildingSummaryDTO> updateBuilding(@PathVariable String id, @Valid @RequestBody BuildingRequestDTO buildingRequestDTO) {
         Building updatedBuilding = buildingService.updateBuilding(id, buildingRequestDTO);
-        return ResponseEntity.ok(updatedBuilding);
+        return ResponseEntity.ok(buildingService.getBuildingSummaryById(updatedBuilding.getId()));
     }
 
     @DeleteMapping("/{id}")
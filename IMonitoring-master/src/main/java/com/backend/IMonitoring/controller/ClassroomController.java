@@ -4,17 +4,21 @@ import com.backend.IMonitoring.dto.AvailabilityRequest;
 import com.backend.IMonitoring.dto.ClassroomAvailabilitySummaryDTO;
 import com.backend.IMonitoring.dto.ClassroomDTO;
 import com.backend.IMonitoring.dto.ClassroomRequestDTO;
-import com.backend.IMonitoring.model.Classroom;
+import com.backend.IMonitoring.dto.ImportJobDTO;
+import com.backend.IMonitoring.dto.ReservationResponseDTO;
 import com.backend.IMonitoring.model.ClassroomType;
-import com.backend.IMonitoring.model.Reservation;
+import com.backend.IMonitoring.security.UserDetailsImpl;
 import com.backend.IMonitoring.service.ClassroomService;
+import com.backend.IMonitoring.service.ImportJobService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -29,23 +33,23 @@ import org.springframework.security.access.prepost.PreAuthorize;
 @RequiredArgsConstructor
 public class ClassroomController {
     private final ClassroomService classroomService;
+    private final ImportJobService importJobService;
 
-    // Modificado para devolver List<ClassroomDTO>
     @GetMapping
     public ResponseEntity<List<ClassroomDTO>> getAllClassrooms() {
         return ResponseEntity.ok(classroomService.getAllClassroomsDTO());
     }
 
-    // El resto de métodos que devuelven Classroom individuales podrían ser modificados a ClassroomDTO también si se desea consistencia
-    // Por ahora, solo se cambia getAllClassrooms para abordar el error de la lista.
     @GetMapping("/{id}")
-    public ResponseEntity<Classroom> getClassroomById(@PathVariable String id) {
-        return ResponseEntity.ok(classroomService.getClassroomById(id));
+    public ResponseEntity<ClassroomDTO> getClassroomById(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer upcomingDays) {
+        return ResponseEntity.ok(classroomService.getClassroomDTOById(id, upcomingDays));
     }
 
     @PostMapping
-    public ResponseEntity<Classroom> createClassroom(@Valid @RequestBody ClassroomRequestDTO classroomRequestDTO) {
-        Classroom createdClassroom = classroomService.createClassroomFromDTO(classroomRequestDTO);
+    public ResponseEntity<ClassroomDTO> createClassroom(@Valid @RequestBody ClassroomRequestDTO classroomRequestDTO) {
+        ClassroomDTO createdClassroom = classroomService.createClassroomFromDTO(classroomRequestDTO);
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
                 .path("/{id}")
@@ -55,8 +59,8 @@ public class ClassroomController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Classroom> updateClassroom(@PathVariable String id, @Valid @RequestBody ClassroomRequestDTO classroomRequestDTO) {
-        Classroom updatedClassroom = classroomService.updateClassroomFromDTO(id, classroomRequestDTO);
+    public ResponseEntity<ClassroomDTO> updateClassroom(@PathVariable String id, @Valid @RequestBody ClassroomRequestDTO classroomRequestDTO) {
+        ClassroomDTO updatedClassroom = classroomService.updateClassroomFromDTO(id, classroomRequestDTO);
         return ResponseEntity.ok(updatedClassroom);
     }
 
@@ -67,23 +71,23 @@ public class ClassroomController {
     }
     
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<Classroom>> getClassroomsByType(@PathVariable ClassroomType type) {
+    public ResponseEntity<List<ClassroomDTO>> getClassroomsByType(@PathVariable ClassroomType type) {
         return ResponseEntity.ok(classroomService.getClassroomsByType(type));
     }
 
     @GetMapping("/capacity/{minCapacity}")
-    public ResponseEntity<List<Classroom>> getClassroomsByMinCapacity(@PathVariable Integer minCapacity) {
+    public ResponseEntity<List<ClassroomDTO>> getClassroomsByMinCapacity(@PathVariable Integer minCapacity) {
         return ResponseEntity.ok(classroomService.getClassroomsByMinCapacity(minCapacity));
     }
 
     @GetMapping("/available-now")
-    public ResponseEntity<List<Classroom>> getAvailableClassroomsNow() {
-        return ResponseEntity.ok(classroomService.getAvailableNow());
+    public ResponseEntity<List<ClassroomDTO>> getAvailableClassroomsNow() {
+        return ResponseEntity.ok(classroomService.getAvailableNowDTO());
     }
 
     @GetMapping("/unavailable-now")
-    public ResponseEntity<List<Classroom>> getUnavailableClassroomsNow() {
-        return ResponseEntity.ok(classroomService.getUnavailableNow());
+    public ResponseEntity<List<ClassroomDTO>> getUnavailableClassroomsNow() {
+        return ResponseEntity.ok(classroomService.getUnavailableNowDTO());
     }
 
     @GetMapping("/stats/availability")
@@ -98,20 +102,26 @@ public class ClassroomController {
     }
 
     @GetMapping("/{classroomId}/reservations-by-date")
-    public ResponseEntity<List<Reservation>> getClassroomReservationsForDateRange(
+    public ResponseEntity<List<ReservationResponseDTO>> getClassroomReservationsForDateRange(
             @PathVariable String classroomId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
-        List<Reservation> reservations = classroomService.getClassroomReservationsForDateRange(classroomId, startDate, endDate);
+        List<ReservationResponseDTO> reservations = classroomService.getClassroomReservationsForDateRange(classroomId, startDate, endDate);
         return ResponseEntity.ok(reservations);
     }
+    // La carga corre en segundo plano; el avance y el resultado por fila se consultan en /api/import-jobs/{jobId}
     @PostMapping("/upload")
     @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
-    public ResponseEntity<Map<String, String>> uploadClassrooms(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadClassrooms(@RequestParam("file") MultipartFile file,
+                                              @AuthenticationPrincipal UserDetailsImpl currentUserDetails) {
         try {
-            String resultado = classroomService.uploadClassroomsFromExcel(file);
-            return ResponseEntity.ok(Map.of("mensaje", resultado));
-        } catch (Exception e) {
+            ImportJobDTO job = importJobService.submitClassroomImport(file, currentUserDetails.getUserEntity());
+            URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/api/import-jobs/{jobId}")
+                    .buildAndExpand(job.getJobId())
+                    .toUri();
+            return ResponseEntity.accepted().location(location).body(job);
+        } catch (IOException | IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Error procesando el archivo: " + e.getMessage()));
         }
     }
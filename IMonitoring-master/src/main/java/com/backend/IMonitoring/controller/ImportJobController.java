@@ -0,0 +1,57 @@
+package com.backend.IMonitoring.controller;
+
+import com.backend.IMonitoring.dto.ImportJobDTO;
+import com.backend.IMonitoring.dto.ImportRowResultDTO;
+import com.backend.IMonitoring.security.UserDetailsImpl;
+import com.backend.IMonitoring.service.ImportJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Seguimiento de las cargas masivas enviadas a /api/users/upload y /api/classrooms/upload
+@RestController
+@RequestMapping("/api/import-jobs")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class ImportJobController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final ImportJobService importJobService;
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String jobId,
+                                                     @AuthenticationPrincipal UserDetailsImpl currentUserDetails) {
+        return ResponseEntity.ok(importJobService.getJob(jobId, currentUserDetails.getUserEntity()));
+    }
+
+    @DeleteMapping("/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+    public ResponseEntity<ImportJobDTO> cancelImportJob(@PathVariable String jobId,
+                                                        @AuthenticationPrincipal UserDetailsImpl currentUserDetails) {
+        return ResponseEntity.ok(importJobService.cancel(jobId, currentUserDetails.getUserEntity()));
+    }
+
+    // Filas con error de una carga terminada: fila, estado y mensaje
+    @GetMapping("/{jobId}/errors")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+    public ResponseEntity<StreamingResponseBody> downloadErrorReport(@PathVariable String jobId,
+                                                                     @AuthenticationPrincipal UserDetailsImpl currentUserDetails) {
+        List<ImportRowResultDTO> errorRows = importJobService.getErrorRows(jobId, currentUserDetails.getUserEntity());
+        String fileName = importJobService.errorReportFileName(jobId, currentUserDetails.getUserEntity());
+        StreamingResponseBody body = out -> ImportJobService.writeErrorReport(errorRows, out);
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+                .body(body);
+    }
+}
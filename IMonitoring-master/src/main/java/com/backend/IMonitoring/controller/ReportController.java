@@ -1,13 +1,21 @@
 package com.backend.IMonitoring.controller;
 
 import com.backend.IMonitoring.dto.*;
+import com.backend.IMonitoring.model.ClassroomType;
+import com.backend.IMonitoring.model.ReservationStatus;
+import com.backend.IMonitoring.model.Rol;
+import com.backend.IMonitoring.service.DailyUsageRollupService;
 import com.backend.IMonitoring.service.ReportService;
+import com.backend.IMonitoring.service.ReservationSnapshotService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -16,24 +24,89 @@ import java.util.List;
 public class ReportController {
 
     private final ReportService reportService;
+    private final DailyUsageRollupService dailyUsageRollupService;
+    private final ReservationSnapshotService reservationSnapshotService;
 
     @GetMapping("/resources")
     public ResponseEntity<List<ResourceReportDTO>> getResources(@RequestParam(value = "resource", defaultValue = "ALL") String resource) {
         return ResponseEntity.ok(reportService.getResourceReport(resource));
     }
 
+    @GetMapping("/resources/totals")
+    public ResponseEntity<ResourceTotalsDTO> getResourceTotals() {
+        return ResponseEntity.ok(reportService.getResourceTotals());
+    }
+
     @GetMapping("/space-usage")
-    public ResponseEntity<List<SpaceUsageDTO>> getSpaceUsage() {
-        return ResponseEntity.ok(reportService.getSpaceUsageStatistics());
+    public ResponseEntity<List<SpaceUsageDTO>> getSpaceUsage(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reportService.getSpaceUsageStatistics(from, to));
+    }
+
+    @GetMapping("/dashboard")
+    public ResponseEntity<DashboardReportDTO> getDashboard(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reportService.getDashboard(from, to));
+    }
+
+    @GetMapping("/heatmap")
+    public ResponseEntity<UtilizationHeatmapDTO> getUtilizationHeatmap(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String buildingId,
+            @RequestParam(required = false) ClassroomType type) {
+        return ResponseEntity.ok(reportService.getUtilizationHeatmap(from, to, buildingId, type));
     }
 
     @GetMapping("/cancellations")
-    public ResponseEntity<CancellationReportDTO> getCancellations() {
-        return ResponseEntity.ok(reportService.getCancellationReport());
+    public ResponseEntity<CancellationReportDTO> getCancellations(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(reportService.getCancellationReport(from, to));
+    }
+
+    @GetMapping("/cancellations/details")
+    public ResponseEntity<CancellationDetailPageDTO> getCancellationDetails(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(reportService.getCancellationDetails(from, to, cursor, size));
     }
 
     @GetMapping("/users")
     public ResponseEntity<UserReportDTO> getUserReport() {
         return ResponseEntity.ok(reportService.getDetailedUserReport());
     }
-}
\ No newline at end of file
+
+    // Agregaciones ad-hoc sobre la instantánea en memoria de reservas
+    @GetMapping("/analytics")
+    public ResponseEntity<AnalyticsResultDTO> getAnalytics(
+            @RequestParam AnalyticsDimension groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) ReservationStatus status,
+            @RequestParam(required = false) String buildingId,
+            @RequestParam(required = false) Rol role,
+            @RequestParam(required = false) String institution) {
+        return ResponseEntity.ok(reservationSnapshotService.query(groupBy, from, to, status, buildingId, role, institution));
+    }
+
+    @PostMapping("/analytics/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AnalyticsResultDTO> refreshAnalyticsSnapshot() {
+        return ResponseEntity.ok(reservationSnapshotService.refresh());
+    }
+
+    // Reconstruye el acumulado diario de uso; sin fechas recorre todo el histórico
+    @PostMapping("/usage-rollup/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildUsageRollup(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int rows = dailyUsageRollupService.rebuild(from, to);
+        return ResponseEntity.ok(Map.of("message", "Acumulado diario reconstruido.", "rows", rows));
+    }
+}
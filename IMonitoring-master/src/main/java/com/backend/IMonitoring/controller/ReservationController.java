@@ -1,12 +1,14 @@
 package com.backend.IMonitoring.controller;
 
+import com.backend.IMonitoring.dto.ExportJobDTO;
 import com.backend.IMonitoring.dto.ReservationRequestDTO;
 import com.backend.IMonitoring.dto.ReservationResponseDTO;
 import com.backend.IMonitoring.dto.SemesterReservationRequestDTO;
-import com.backend.IMonitoring.dto.UsageLogDTO;
+import com.backend.IMonitoring.dto.UsageLogPageDTO;
 import com.backend.IMonitoring.model.Classroom;
 import com.backend.IMonitoring.model.Reservation;
 import com.backend.IMonitoring.model.ReservationStatus;
+import com.backend.IMonitoring.model.Rol;
 import com.backend.IMonitoring.model.User;
 import com.backend.IMonitoring.security.UserDetailsImpl;
 import com.backend.IMonitoring.service.ReservationService;
@@ -21,11 +23,17 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import com.backend.IMonitoring.service.ScheduleExportJobService;
 import com.backend.IMonitoring.service.ScheduleExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -45,8 +53,10 @@ public class ReservationController {
     private final ReservationService reservationService;
 
     @GetMapping
-    public ResponseEntity<List<ReservationResponseDTO>> getAllReservations() {
-        return ResponseEntity.ok(reservationService.getReservationsByStatusDTO(null));
+    public ResponseEntity<StreamingResponseBody> getAllReservations(
+            @RequestParam(required = false) ReservationStatus status) {
+        StreamingResponseBody body = out -> reservationService.writeReservationsAsJson(status, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/filter")
@@ -106,8 +116,16 @@ public class ReservationController {
 
     @GetMapping("/logs")
     @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
-    public ResponseEntity<List<UsageLogDTO>> getUsageLogs() {
-        return ResponseEntity.ok(reservationService.getUsageLogs());
+    public ResponseEntity<UsageLogPageDTO> getUsageLogs(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String classroomId,
+            @RequestParam(required = false) String buildingId,
+            @RequestParam(required = false) Rol role,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "50") int size) {
+        return ResponseEntity.ok(reservationService.getUsageLogs(from, to, classroomId, buildingId, role, userId, cursor, size));
     }
 
     @GetMapping("/{id}")
@@ -157,7 +175,7 @@ public class ReservationController {
         reservation.setPurpose(reservationRequestDTO.getPurpose());
 
         Reservation createdReservationEntity = reservationService.createReservation(reservation, currentUserDetails);
-        ReservationResponseDTO responseDTO = reservationService.convertToDTO(createdReservationEntity);
+        ReservationResponseDTO responseDTO = ReservationResponseDTO.fromEntity(createdReservationEntity);
 
         URI location = ServletUriComponentsBuilder
                 .fromCurrentRequest()
@@ -180,7 +198,7 @@ public class ReservationController {
         Reservation updatedReservationEntity = reservationService.updateReservationStatus(
                 id, statusRequest.getStatus(), statusRequest.getReason(), currentUserDetails);
 
-        return ResponseEntity.ok(reservationService.convertToDTO(updatedReservationEntity));
+        return ResponseEntity.ok(ReservationResponseDTO.fromEntity(updatedReservationEntity));
     }
 
     @PutMapping("/{id}")
@@ -227,7 +245,7 @@ public class ReservationController {
             @AuthenticationPrincipal UserDetails currentUserDetails) {
 
         Reservation cancelledReservation = reservationService.cancelMyReservation(id, reason, currentUserDetails);
-        return ResponseEntity.ok(reservationService.convertToDTO(cancelledReservation));
+        return ResponseEntity.ok(ReservationResponseDTO.fromEntity(cancelledReservation));
     }
 
     @PatchMapping("/{id}/cancel-by-user")
@@ -253,18 +271,53 @@ public class ReservationController {
 
     @GetMapping("/export-schedule")
     @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
-    public ResponseEntity<byte[]> exportSchedule(
+    public ResponseEntity<StreamingResponseBody> exportSchedule(
             @RequestParam(defaultValue = "AMBAS") String institution,
             @RequestParam(defaultValue = "LISTA") String format) {
-        try {
-            byte[] excelData = scheduleExportService.exportScheduleAsExcel(institution, format);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Horario_" + institution + "_" + format + ".xlsx")
-                    .header(HttpHeaders.CONTENT_TYPE, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                    .body(excelData);
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
-        }
+        ScheduleExportService.ExportWindow window = scheduleExportService.resolveWindow(format, null, null);
+        // Sin Content-Length: la respuesta sale por chunks mientras se escribe el libro; si el cliente corta,
+        // la escritura falla y el servicio libera los temporales del libro
+        StreamingResponseBody body = out -> scheduleExportService.writeScheduleExcel(institution, format, window, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Horario_" + institution + "_" + format + ".xlsx")
+                .header(HttpHeaders.CONTENT_TYPE, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .body(body);
     }
-}
\ No newline at end of file
+
+    @Autowired
+    private ScheduleExportJobService scheduleExportJobService;
+
+    // Exportación en segundo plano: se encola y se consulta su estado hasta poder descargarla
+    @PostMapping("/export-jobs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+    public ResponseEntity<ExportJobDTO> submitExportJob(
+            @RequestParam(defaultValue = "AMBAS") String institution,
+            @RequestParam(defaultValue = "LISTA") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ExportJobDTO job = scheduleExportJobService.submit(institution, format, from, to);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{jobId}")
+                .buildAndExpand(job.getJobId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @GetMapping("/export-jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+    public ResponseEntity<ExportJobDTO> getExportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(scheduleExportJobService.getJob(jobId));
+    }
+
+    @GetMapping("/export-jobs/{jobId}/file")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+    public ResponseEntity<StreamingResponseBody> downloadExportJob(@PathVariable String jobId) throws IOException {
+        Path file = scheduleExportJobService.getCompletedFile(jobId);
+        StreamingResponseBody body = out -> ScheduleExportJobService.transferFile(file, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + scheduleExportJobService.downloadFileName(jobId))
+                .header(HttpHeaders.CONTENT_TYPE, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .contentLength(Files.size(file))
+                .body(body);
+    }
+}
@@ -0,0 +1,122 @@
+package com.backend.IMonitoring.controller;
+
+import com.backend.IMonitoring.service.ScheduleFeedService;
+import com.backend.IMonitoring.service.ScheduleFeedService.FeedFormat;
+import com.backend.IMonitoring.service.ScheduleFeedService.FeedRequest;
+import com.backend.IMonitoring.service.ScheduleFeedService.FeedScope;
+import com.backend.IMonitoring.service.ScheduleFeedService.FeedVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+// Horarios para suscribirse desde un calendario o descargar como CSV: .../schedule.ics o .../schedule.csv
+@RestController
+@RequestMapping("/api/feeds")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", allowedHeaders = "*", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED})
+public class ScheduleFeedController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType TEXT_CALENDAR = new MediaType("text", "calendar", StandardCharsets.UTF_8);
+
+    private final ScheduleFeedService scheduleFeedService;
+
+    @GetMapping("/classrooms/{classroomId}/schedule.{format}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> getClassroomFeed(
+            @PathVariable String classroomId,
+            @PathVariable String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader HttpHeaders requestHeaders) {
+        return feed(FeedScope.CLASSROOM, classroomId, format, from, to, requestHeaders);
+    }
+
+    @GetMapping("/buildings/{buildingId}/schedule.{format}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> getBuildingFeed(
+            @PathVariable String buildingId,
+            @PathVariable String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader HttpHeaders requestHeaders) {
+        return feed(FeedScope.BUILDING, buildingId, format, from, to, requestHeaders);
+    }
+
+    @GetMapping("/users/{userId}/schedule.{format}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR') or #userId == authentication.principal.id")
+    public ResponseEntity<StreamingResponseBody> getUserFeed(
+            @PathVariable String userId,
+            @PathVariable String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader HttpHeaders requestHeaders) {
+        return feed(FeedScope.USER, userId, format, from, to, requestHeaders);
+    }
+
+    private ResponseEntity<StreamingResponseBody> feed(FeedScope scope, String id, String format,
+                                                       LocalDate from, LocalDate to, HttpHeaders requestHeaders) {
+        FeedFormat feedFormat = parseFormat(format);
+        FeedRequest request = scheduleFeedService.resolve(scope, id, from, to);
+        FeedVersion version = scheduleFeedService.version(request, feedFormat);
+
+        if (isNotModified(version, requestHeaders)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(version.eTag())
+                    .lastModified(version.lastModified())
+                    .build();
+        }
+
+        StreamingResponseBody body = feedFormat == FeedFormat.ICS
+                ? out -> scheduleFeedService.writeIcs(request, out)
+                : out -> scheduleFeedService.writeCsv(request, out);
+        return ResponseEntity.ok()
+                .contentType(feedFormat == FeedFormat.ICS ? TEXT_CALENDAR : TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "inline; filename=horario_" + scope.name().toLowerCase(Locale.ROOT) + "_" + id + "." + feedFormat.name().toLowerCase(Locale.ROOT))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(version.eTag())
+                .lastModified(version.lastModified())
+                .body(body);
+    }
+
+    private FeedFormat parseFormat(String format) {
+        try {
+            return FeedFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Formato de feed no soportado: " + format + ". Use csv o ics.");
+        }
+    }
+
+    // If-None-Match manda sobre If-Modified-Since (RFC 9110, 13.2.2); la comparación de ETag es débil
+    private boolean isNotModified(FeedVersion version, HttpHeaders requestHeaders) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String current = stripWeak(version.eTag());
+            return ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || stripWeak(tag).equals(current));
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = requestHeaders.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince >= 0 && version.lastModified().getEpochSecond() <= ifModifiedSince / 1000;
+    }
+
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+}
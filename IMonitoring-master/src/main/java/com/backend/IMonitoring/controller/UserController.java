@@ -1,5 +1,6 @@
 package com.backend.IMonitoring.controller;
 
+import com.backend.IMonitoring.dto.ImportJobDTO;
 import com.backend.IMonitoring.dto.UpdatePasswordRequest;
 import com.backend.IMonitoring.dto.UserDTO;
 import com.backend.IMonitoring.dto.ReservationResponseDTO;
@@ -8,6 +9,7 @@ import com.backend.IMonitoring.model.ReservationStatus;
 import com.backend.IMonitoring.model.User;
 import com.backend.IMonitoring.security.UserDetailsImpl;
 import com.backend.IMonitoring.service.ReservationService;
+import com.backend.IMonitoring.service.ImportJobService;
 import com.backend.IMonitoring.service.UserService;
 import com.backend.IMonitoring.utils.CareerUtils;
 import com.backend.IMonitoring.exceptions.UnauthorizedAccessException;
@@ -36,6 +38,7 @@ import java.util.stream.Collectors;
 public class UserController {
     private final UserService userService;
     private final ReservationService reservationService;
+    private final ImportJobService importJobService;
 
     @GetMapping("/me")
     @PreAuthorize("isAuthenticated()")
@@ -218,14 +221,19 @@ public class UserController {
         userService.deleteUser(id, performingUser);
         return ResponseEntity.noContent().build();
     }
+    // La carga corre en segundo plano; el avance se consulta en /api/import-jobs/{jobId}
     @PostMapping("/upload")
     @PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
-    public ResponseEntity<Map<String, String>> uploadUsers(@RequestParam("file") MultipartFile file,
-                                                           @AuthenticationPrincipal UserDetailsImpl currentUserDetails) {
+    public ResponseEntity<?> uploadUsers(@RequestParam("file") MultipartFile file,
+                                         @AuthenticationPrincipal UserDetailsImpl currentUserDetails) {
         try {
-            String resultMessage = userService.uploadUsersFromExcel(file, currentUserDetails.getUserEntity());
-            return ResponseEntity.ok(Map.of("message", resultMessage));
-        } catch (Exception e) {
+            ImportJobDTO job = importJobService.submitUserImport(file, currentUserDetails.getUserEntity());
+            URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/api/import-jobs/{jobId}")
+                    .buildAndExpand(job.getJobId())
+                    .toUri();
+            return ResponseEntity.accepted().location(location).body(job);
+        } catch (IOException | IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Error procesando el archivo: " + e.getMessage()));
         }
     }
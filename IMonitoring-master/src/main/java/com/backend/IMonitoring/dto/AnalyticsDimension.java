@@ -0,0 +1,13 @@
+package com.backend.IMonitoring.dto;
+
+// Dimensiones por las que se puede agrupar la instantánea de reservas
+public enum AnalyticsDimension {
+    ROLE,
+    INSTITUTION,
+    BUILDING,
+    CLASSROOM,
+    STATUS,
+    MONTH,
+    WEEKDAY,
+    HOUR
+}
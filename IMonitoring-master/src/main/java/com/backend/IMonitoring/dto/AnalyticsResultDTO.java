@@ -0,0 +1,28 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AnalyticsResultDTO {
+    private AnalyticsDimension groupBy;
+    private LocalDateTime snapshotTakenAt;
+    private long rowsScanned;
+    private long rowsMatched;
+    private long elapsedMillis;
+    private List<Group> groups;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Group {
+        private String key;
+        private long reservations;
+        private long bookedMinutes;
+    }
+}
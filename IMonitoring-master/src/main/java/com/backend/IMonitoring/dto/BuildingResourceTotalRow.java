@@ -0,0 +1,9 @@
+package com.backend.IMonitoring.dto;
+
+// Total de un recurso dentro de un edificio
+public interface BuildingResourceTotalRow {
+    String getBuildingName();
+    String getResourceKey();
+    Long getClassroomCount();
+    Long getTotalQuantity();
+}
@@ -0,0 +1,20 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BuildingSummaryDTO {
+    private String id;
+    private String name;
+    private String location;
+    private Long classroomCount;
+    private Long totalCapacity;
+    // Aulas con una reserva confirmada o pendiente en curso
+    private Long occupiedNow;
+}
@@ -0,0 +1,10 @@
+package com.backend.IMonitoring.dto;
+
+import com.backend.IMonitoring.model.ReservationStatus;
+
+// Conteo agrupado por estado y motivo para el reporte de cancelaciones
+public interface CancellationReasonRow {
+    ReservationStatus getStatus();
+    String getReason();
+    Long getTotal();
+}
@@ -1,6 +1,8 @@
 package com.backend.IMonitoring.dto;
 
 import lombok.*;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -9,8 +11,12 @@ import java.util.Map;
 @AllArgsConstructor
 @Builder
 public class CancellationReportDTO {
+    private LocalDateTime from;
+    private LocalDateTime to;
     private long totalCancellations;
     private long totalRejected;
     private Map<String, Long> reasonsCount;
+    // Primera página del detalle; las siguientes se piden a /reports/cancellations/details
     private List<RejectedReservationDTO> details;
-}
\ No newline at end of file
+    private String detailsNextCursor;
+}
@@ -1,6 +1,7 @@
 package com.backend.IMonitoring.dto;
 
 import com.backend.IMonitoring.model.ClassroomType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -9,6 +10,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -36,4 +38,8 @@ public class ClassroomDTO {
     private String buildingId;
 
     private String buildingName;
+
+    // Solo se llena cuando se pide una ventana de próximas reservas (acotada en días y cantidad)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ReservationResponseDTO> upcomingReservations;
 }
\ No newline at end of file
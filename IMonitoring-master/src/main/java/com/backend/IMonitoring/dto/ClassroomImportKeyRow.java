@@ -0,0 +1,12 @@
+package com.backend.IMonitoring.dto;
+
+import com.backend.IMonitoring.model.ClassroomType;
+
+// Aula existente vista por la carga masiva: clave (edificio, nombre) y los campos que la carga puede cambiar
+public interface ClassroomImportKeyRow {
+    String getId();
+    String getBuildingId();
+    String getName();
+    Integer getCapacity();
+    ClassroomType getType();
+}
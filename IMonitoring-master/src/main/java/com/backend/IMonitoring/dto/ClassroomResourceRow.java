@@ -0,0 +1,10 @@
+package com.backend.IMonitoring.dto;
+
+// Un recurso (clave del jsonb resources) de un aula, expandido con jsonb_each_text
+public interface ClassroomResourceRow {
+    String getClassroomId();
+    String getClassroomName();
+    String getBuildingName();
+    String getResourceKey();
+    Integer getQuantity();
+}
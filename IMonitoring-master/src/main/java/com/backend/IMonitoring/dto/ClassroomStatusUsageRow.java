@@ -0,0 +1,11 @@
+package com.backend.IMonitoring.dto;
+
+// Fila del agregado de uso por aula y estado (proyección de consulta nativa)
+public interface ClassroomStatusUsageRow {
+    String getClassroomId();
+    String getClassroomName();
+    String getBuildingName();
+    String getStatus();
+    Long getReservationCount();
+    Long getBookedMinutes();
+}
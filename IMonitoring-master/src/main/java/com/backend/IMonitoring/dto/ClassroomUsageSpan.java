@@ -0,0 +1,17 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Tramo de tiempo de un aula cuyo acumulado diario debe recalcularse
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassroomUsageSpan {
+    private String classroomId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
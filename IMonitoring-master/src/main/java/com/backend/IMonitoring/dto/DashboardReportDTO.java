@@ -0,0 +1,19 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardReportDTO {
+    private List<ResourceReportDTO> resources;
+    private List<SpaceUsageDTO> spaceUsage;
+    private CancellationReportDTO cancellations;
+    private UserReportDTO users;
+    // Reporte -> motivo, para las secciones que fallaron o excedieron el tiempo (quedan en null)
+    private Map<String, String> errors;
+}
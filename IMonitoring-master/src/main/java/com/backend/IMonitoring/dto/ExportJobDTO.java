@@ -0,0 +1,29 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+    private String jobId;
+    private ExportJobStatus status;
+    private String institution;
+    private String format;
+    private LocalDate from;
+    // null = hasta la última reserva futura
+    private LocalDate to;
+    // true si el archivo se sirvió de la caché en disco sin volver a generarlo
+    private boolean cached;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+    private Long sizeBytes;
+    private String error;
+}
@@ -0,0 +1,9 @@
+package com.backend.IMonitoring.dto;
+
+// Ciclo de vida de un trabajo de exportación de horarios
+public enum ExportJobStatus {
+    PENDIENTE,
+    EN_PROCESO,
+    COMPLETADO,
+    FALLIDO
+}
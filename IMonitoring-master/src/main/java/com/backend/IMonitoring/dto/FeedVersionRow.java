@@ -0,0 +1,9 @@
+package com.backend.IMonitoring.dto;
+
+import java.time.LocalDateTime;
+
+// Cantidad de reservas del feed y su última modificación; base del ETag y Last-Modified
+public interface FeedVersionRow {
+    Long getTotal();
+    LocalDateTime getLastUpdated();
+}
@@ -0,0 +1,34 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+    private String jobId;
+    private ImportJobType type;
+    private ImportJobStatus status;
+    private String fileName;
+    private String submittedBy;
+    // Contadores en vivo; las filas escritas se confirman todas juntas al terminar la carga
+    private int rowsRead;
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private int failed;
+    private double rowsPerSecond;
+    private boolean cancelRequested;
+    private boolean errorReportAvailable;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+    private String error;
+}
@@ -0,0 +1,11 @@
+package com.backend.IMonitoring.dto;
+
+// Ciclo de vida de un trabajo de carga masiva
+public enum ImportJobStatus {
+    PENDIENTE,
+    EN_PROCESO,
+    COMPLETADO,
+    FALLIDO,
+    // Cancelado antes de empezar o durante la carga; en ambos casos no se guarda ninguna fila
+    CANCELADO
+}
@@ -0,0 +1,6 @@
+package com.backend.IMonitoring.dto;
+
+public enum ImportJobType {
+    USUARIOS,
+    AULAS
+}
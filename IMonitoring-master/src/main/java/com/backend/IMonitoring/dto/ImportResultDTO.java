@@ -0,0 +1,23 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    // Filas de datos leídas (sin cabecera ni filas vacías)
+    private int rowsRead;
+    private int created;
+    private int updated;
+    private int unchanged;
+    private int failed;
+    private List<ImportRowResultDTO> rows;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowResultDTO {
+    // Número de fila como se ve en Excel (la cabecera es la 1)
+    private int row;
+    private ImportRowStatus status;
+    private String message;
+}
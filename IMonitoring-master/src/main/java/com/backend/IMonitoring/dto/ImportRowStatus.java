@@ -0,0 +1,10 @@
+package com.backend.IMonitoring.dto;
+
+// Resultado de una fila de una carga masiva
+public enum ImportRowStatus {
+    CREADO,
+    ACTUALIZADO,
+    // La fila coincide con lo que ya está guardado; no se escribe nada
+    SIN_CAMBIOS,
+    ERROR
+}
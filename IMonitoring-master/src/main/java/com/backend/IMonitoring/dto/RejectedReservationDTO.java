@@ -1,5 +1,6 @@
 package com.backend.IMonitoring.dto;
 
+import com.backend.IMonitoring.model.ReservationStatus;
 import lombok.*;
 import java.time.LocalDateTime;
 
@@ -8,9 +9,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 public class RejectedReservationDTO {
+    private String reservationId;
     private String userName;
     private String classroomName;
-    private String status;
+    private ReservationStatus status;
     private String reason;
     private LocalDateTime date;
-}
\ No newline at end of file
+}
@@ -1,6 +1,9 @@
 package com.backend.IMonitoring.dto;
 
+import com.backend.IMonitoring.model.Classroom;
+import com.backend.IMonitoring.model.Reservation;
 import com.backend.IMonitoring.model.ReservationStatus;
+import com.backend.IMonitoring.model.User;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -32,4 +35,38 @@ public class ReservationResponseDTO {
     private LocalDate semesterEndDate;
     private List<String> daysOfWeek;
     private String institution;
-}
\ No newline at end of file
+
+    public static ReservationResponseDTO fromEntity(Reservation reservation) {
+        if (reservation == null) return null;
+
+        User userEntity = reservation.getUser();
+        UserSummaryDTO userSummary = (userEntity != null) ?
+                new UserSummaryDTO(userEntity.getId(), userEntity.getName(), userEntity.getEmail(), userEntity.getRole()) : null;
+
+        Classroom classroomEntity = reservation.getClassroom();
+        ClassroomSummaryDTO classroomSummary = null;
+        if (classroomEntity != null) {
+            String buildingName = (classroomEntity.getBuilding() != null) ? classroomEntity.getBuilding().getName() : null;
+            classroomSummary = new ClassroomSummaryDTO(
+                    classroomEntity.getId(),
+                    classroomEntity.getName(),
+                    buildingName,
+                    classroomEntity.getIsUnderMaintenance()
+            );
+        }
+
+        return ReservationResponseDTO.builder()
+                .id(reservation.getId())
+                .groupId(reservation.getGroupId())
+                .recurrenceDetails(reservation.getRecurrenceDetails())
+                .classroom(classroomSummary)
+                .user(userSummary)
+                .startTime(reservation.getStartTime())
+                .endTime(reservation.getEndTime())
+                .status(reservation.getStatus())
+                .purpose(reservation.getPurpose())
+                .createdAt(reservation.getCreatedAt())
+                .updatedAt(reservation.getUpdatedAt())
+                .build();
+    }
+}
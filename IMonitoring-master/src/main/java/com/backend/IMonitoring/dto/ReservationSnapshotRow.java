@@ -0,0 +1,26 @@
+package com.backend.IMonitoring.dto;
+
+import com.backend.IMonitoring.model.ReservationStatus;
+import com.backend.IMonitoring.model.Rol;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Fila mínima leída para construir la instantánea columnar de reservas
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationSnapshotRow {
+    private String classroomId;
+    private String classroomName;
+    private String buildingId;
+    private String buildingName;
+    private String userId;
+    private Rol role;
+    private String institution;
+    private ReservationStatus status;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
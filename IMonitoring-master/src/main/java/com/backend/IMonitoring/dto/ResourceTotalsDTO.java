@@ -0,0 +1,18 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResourceTotalsDTO {
+    // Cantidad total de cada recurso en todas las aulas
+    private Map<String, Long> totalsByResource;
+    // Número de aulas que tienen cada recurso
+    private Map<String, Long> classroomsByResource;
+    // Edificio -> recurso -> cantidad total
+    private Map<String, Map<String, Long>> totalsByBuilding;
+}
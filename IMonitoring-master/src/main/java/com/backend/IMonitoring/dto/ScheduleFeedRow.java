@@ -0,0 +1,24 @@
+package com.backend.IMonitoring.dto;
+
+import com.backend.IMonitoring.model.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Fila de los feeds CSV/iCalendar: solo lo que se escribe, sin cargar entidades
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleFeedRow {
+    private String id;
+    private String classroomName;
+    private String buildingName;
+    private String userName;
+    private String purpose;
+    private ReservationStatus status;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private LocalDateTime updatedAt;
+}
@@ -2,12 +2,22 @@ package com.backend.IMonitoring.dto;
 
 import lombok.*;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class SpaceUsageDTO {
+    private String classroomId;
     private String classroomName;
+    private String buildingName;
     private long totalReservations;
+    // Porcentaje de las reservas del periodo que corresponden a esta aula
     private double usagePercentage;
-}
\ No newline at end of file
+    private Map<String, Long> reservationsByStatus;
+    // Minutos reservados (confirmados) dentro del periodo
+    private long bookedMinutes;
+    // Minutos confirmados frente a los minutos de apertura del periodo
+    private double utilizationPercentage;
+}
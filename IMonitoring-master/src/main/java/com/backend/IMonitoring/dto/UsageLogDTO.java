@@ -1,17 +1,24 @@
 package com.backend.IMonitoring.dto;
 
+import com.backend.IMonitoring.model.Rol;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class UsageLogDTO {
     private String reservationId;
     private String classroomName;
+    private String buildingName;
     private String userName;
-    private String role;
+    private Rol role;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private String purpose;
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.backend.IMonitoring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageLogPageDTO {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<UsageLogDTO> items;
+    // Cursor opaco para pedir la página siguiente; null cuando no hay más resultados
+    private String nextCursor;
+}
@@ -0,0 +1,8 @@
+package com.backend.IMonitoring.dto;
+
+// Fila del conteo de usuarios por dimensión (ROLE, INSTITUTION, CAREER o TOTAL)
+public interface UserCountRow {
+    String getDimension();
+    String getLabel();
+    Long getTotal();
+}
@@ -0,0 +1,24 @@
+package com.backend.IMonitoring.dto;
+
+import com.backend.IMonitoring.model.ClassroomType;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UtilizationHeatmapDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private String buildingId;
+    private ClassroomType classroomType;
+    private long classroomCount;
+    // Filas en el orden de days (lunes a domingo), columnas = hora del día 0..23
+    private List<String> days;
+    private long[][] bookedMinutes;
+    // Minutos reservados / minutos disponibles del bloque (aulas x ocurrencias del día en el rango x 60)
+    private double[][] density;
+}
@@ -0,0 +1,5 @@
+package com.backend.IMonitoring.events;
+
+// Alta, edición o baja de aulas (o del nombre de un edificio)
+public record ClassroomDataChangedEvent(String classroomId) {
+}
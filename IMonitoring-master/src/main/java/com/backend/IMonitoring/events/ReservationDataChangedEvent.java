@@ -0,0 +1,9 @@
+package com.backend.IMonitoring.events;
+
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+
+import java.util.List;
+
+// Reservas escritas en los tramos indicados; spans null significa "cualquier fecha" (reconstrucciones)
+public record ReservationDataChangedEvent(List<ClassroomUsageSpan> spans) {
+}
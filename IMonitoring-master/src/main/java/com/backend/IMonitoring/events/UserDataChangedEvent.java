@@ -0,0 +1,5 @@
+package com.backend.IMonitoring.events;
+
+// Alta, edición o baja de usuarios que afecta datos visibles en los reportes (userId null en cargas masivas)
+public record UserDataChangedEvent(String userId) {
+}
@@ -0,0 +1,10 @@
+package com.backend.IMonitoring.events;
+
+import java.util.List;
+
+// Cuentas creadas por una carga masiva; los correos de bienvenida se encolan al confirmar la transacción
+public record UsersImportedEvent(List<NewAccount> accounts) {
+
+    public record NewAccount(String name, String email, String temporaryPassword) {
+    }
+}
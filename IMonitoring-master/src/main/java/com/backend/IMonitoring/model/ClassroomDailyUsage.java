@@ -0,0 +1,38 @@
+package com.backend.IMonitoring.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Acumulado diario por aula y estado. Se recalcula por tramos (aula, días) cada vez que
+// ReservationService escribe una reserva, y se reconcilia cada noche.
+// classroom_id no es FK para que borrar un aula no dependa de este agregado.
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "classroom_daily_usage", indexes = {
+        @Index(name = "idx_daily_usage_date", columnList = "usage_date")
+})
+public class ClassroomDailyUsage {
+    @EmbeddedId
+    private ClassroomDailyUsageId id;
+
+    @Column(name = "reservation_count", nullable = false)
+    private long reservationCount;
+
+    // Minutos reservados dentro del día (las reservas que cruzan la medianoche se reparten)
+    @Column(name = "booked_minutes", nullable = false)
+    private long bookedMinutes;
+
+    @Column(name = "distinct_users", nullable = false)
+    private long distinctUsers;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
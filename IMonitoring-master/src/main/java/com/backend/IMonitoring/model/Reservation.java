@@ -11,7 +11,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "reservation")
+@Table(name = "reservation", indexes = {
+        @Index(name = "idx_reservation_status_start", columnList = "status, start_time"),
+        @Index(name = "idx_reservation_classroom_start", columnList = "classroom_id, start_time"),
+        @Index(name = "idx_reservation_user_start", columnList = "user_id, start_time"),
+        @Index(name = "idx_reservation_group", columnList = "group_id")
+})
 public class Reservation {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
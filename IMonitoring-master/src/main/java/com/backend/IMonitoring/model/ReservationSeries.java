@@ -0,0 +1,52 @@
+package com.backend.IMonitoring.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Metadatos de una serie semestral, mantenidos al crear/editar la serie
+// para no recorrer todas sus ocurrencias en cada lectura.
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "reservation_series")
+public class ReservationSeries {
+    @Id
+    @Column(name = "group_id")
+    private String groupId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    // Días de la semana (DayOfWeek.name()) ordenados de lunes a domingo
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "days_of_week", columnDefinition = "jsonb")
+    @Builder.Default
+    private List<String> daysOfWeek = new ArrayList<>();
+
+    @Column(name = "occurrence_count", nullable = false)
+    private Integer occurrenceCount;
+
+    @Column(name = "updated_at", nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,11 +1,29 @@
 package com.backend.IMonitoring.repository;
 
+import com.backend.IMonitoring.dto.BuildingSummaryDTO;
 import com.backend.IMonitoring.model.Building;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface BuildingRepository extends JpaRepository<Building, String> {
 
     Optional<Building> findByName(String name);
 
+    String SUMMARY_SELECT = "SELECT new com.backend.IMonitoring.dto.BuildingSummaryDTO(" +
+            "b.id, b.name, b.location, COUNT(c.id), COALESCE(SUM(c.capacity), 0), " +
+            "SUM(CASE WHEN c.id IN (SELECT r.classroom.id FROM Reservation r WHERE " +
+            "r.status IN (com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA, com.backend.IMonitoring.model.ReservationStatus.PENDIENTE) " +
+            "AND r.startTime < :now AND r.endTime > :now) THEN 1 ELSE 0 END)) " +
+            "FROM Building b LEFT JOIN b.classrooms c ";
+
+    @Query(SUMMARY_SELECT + "GROUP BY b.id, b.name, b.location ORDER BY b.name ASC")
+    List<BuildingSummaryDTO> findAllSummaries(@Param("now") LocalDateTime now);
+
+    @Query(SUMMARY_SELECT + "WHERE b.id = :id GROUP BY b.id, b.name, b.location")
+    Optional<BuildingSummaryDTO> findSummaryById(@Param("id") String id, @Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -1,7 +1,14 @@
 package com.backend.IMonitoring.repository;
 
+import com.backend.IMonitoring.dto.BuildingResourceTotalRow;
+import com.backend.IMonitoring.dto.ClassroomImportKeyRow;
+import com.backend.IMonitoring.dto.ClassroomResourceRow;
 import com.backend.IMonitoring.model.Classroom;
 import com.backend.IMonitoring.model.ClassroomType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,16 +20,30 @@ import java.util.List;
 @Repository
 public interface ClassroomRepository extends JpaRepository<Classroom, String> {
 
+    // El edificio se carga junto al aula para armar ClassroomDTO sin N+1
+    @Override
+    @EntityGraph(attributePaths = "building")
+    List<Classroom> findAll(Sort sort);
+
+    @EntityGraph(attributePaths = "building")
     List<Classroom> findByType(ClassroomType type);
+
+    @EntityGraph(attributePaths = "building")
     List<Classroom> findByCapacityGreaterThanEqual(Integer minCapacity);
+
     List<Classroom> findByBuilding_Id(String buildingId);
 
+    @EntityGraph(attributePaths = "building")
+    Page<Classroom> findByBuilding_Id(String buildingId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "building")
     @Query("SELECT c FROM Classroom c WHERE c.id NOT IN " +
            "(SELECT r.classroom.id FROM Reservation r WHERE " +
            "(r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA OR r.status = com.backend.IMonitoring.model.ReservationStatus.PENDIENTE) AND " +
            "(r.startTime < :now AND r.endTime > :now))")
     List<Classroom> findAvailableNow(@Param("now") LocalDateTime now);
 
+    @EntityGraph(attributePaths = "building")
     @Query("SELECT c FROM Classroom c WHERE c.id IN " +
            "(SELECT r.classroom.id FROM Reservation r WHERE " +
            "(r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA OR r.status = com.backend.IMonitoring.model.ReservationStatus.PENDIENTE) AND " +
@@ -52,4 +73,44 @@ public interface ClassroomRepository extends JpaRepository<Classroom, String> {
             @Param("endTime") LocalDateTime endTime,
             @Param("excludeReservationId") String excludeReservationId
     );
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(c) FROM Classroom c " +
+            "WHERE (:buildingId IS NULL OR c.building.id = :buildingId) AND (:type IS NULL OR c.type = :type)")
+    long countByBuildingAndType(@Param("buildingId") String buildingId, @Param("type") ClassroomType type);
+
+    // Claves de todas las aulas para la carga masiva, sin cargar entidades
+    @Query("SELECT c.id AS id, c.building.id AS buildingId, c.name AS name, c.capacity AS capacity, c.type AS type " +
+            "FROM Classroom c")
+    List<ClassroomImportKeyRow> findAllImportKeys();
+
+    // --- Inventario de recursos resuelto en PostgreSQL sobre el jsonb resources ---
+
+    @Query(value = "SELECT c.id AS classroomId, c.name AS classroomName, b.name AS buildingName, " +
+            "e.key AS resourceKey, CAST(e.value AS INTEGER) AS quantity " +
+            "FROM classroom c " +
+            "LEFT JOIN building b ON b.id = c.building_id " +
+            "LEFT JOIN LATERAL jsonb_each_text(c.resources) e ON true " +
+            "ORDER BY c.name, c.id, e.key",
+            nativeQuery = true)
+    List<ClassroomResourceRow> findAllResourceRows();
+
+    // "@@ exists($.clave)" equivale al operador "?" de jsonb (que Spring Data confunde con un parámetro) y usa el índice GIN
+    @Query(value = "SELECT c.id AS classroomId, c.name AS classroomName, b.name AS buildingName, " +
+            "CAST(:resource AS TEXT) AS resourceKey, CAST(c.resources ->> CAST(:resource AS TEXT) AS INTEGER) AS quantity " +
+            "FROM classroom c " +
+            "LEFT JOIN building b ON b.id = c.building_id " +
+            "WHERE c.resources @@ CAST(:existsPath AS jsonpath) " +
+            "ORDER BY c.name, c.id",
+            nativeQuery = true)
+    List<ClassroomResourceRow> findResourceRowsHaving(@Param("resource") String resource,
+                                                      @Param("existsPath") String existsPath);
+
+    @Query(value = "SELECT b.name AS buildingName, e.key AS resourceKey, " +
+            "COUNT(DISTINCT c.id) AS classroomCount, CAST(SUM(CAST(e.value AS INTEGER)) AS BIGINT) AS totalQuantity " +
+            "FROM classroom c " +
+            "LEFT JOIN building b ON b.id = c.building_id " +
+            "CROSS JOIN LATERAL jsonb_each_text(c.resources) e " +
+            "GROUP BY b.name, e.key",
+            nativeQuery = true)
+    List<BuildingResourceTotalRow> sumResourcesByBuilding();
+}
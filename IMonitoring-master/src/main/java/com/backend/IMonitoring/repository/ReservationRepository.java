@@ -1,16 +1,33 @@
 package com.backend.IMonitoring.repository;
 
+import com.backend.IMonitoring.dto.CancellationReasonRow;
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+import com.backend.IMonitoring.dto.FeedVersionRow;
+import com.backend.IMonitoring.dto.RejectedReservationDTO;
+import com.backend.IMonitoring.dto.ReservationSnapshotRow;
+import com.backend.IMonitoring.dto.ScheduleFeedRow;
+import com.backend.IMonitoring.dto.UsageLogDTO;
+import com.backend.IMonitoring.model.ClassroomType;
 import com.backend.IMonitoring.model.Reservation;
 import com.backend.IMonitoring.model.ReservationStatus;
+import com.backend.IMonitoring.model.Rol;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, String> {
@@ -19,7 +36,10 @@ public interface ReservationRepository extends JpaRepository<Reservation, String
     List<Reservation> findByUserId(String userId, Sort sort);
     List<Reservation> findByClassroomId(String classroomId, Sort sort);
     List<Reservation> findByGroupId(String groupId);
-    long countByClassroomId(String classroomId);
+
+    @Query("SELECT r FROM Reservation r LEFT JOIN FETCH r.classroom c LEFT JOIN FETCH c.building LEFT JOIN FETCH r.user WHERE r.id = :id")
+    Optional<Reservation> findByIdWithDetails(@Param("id") String id);
+    @EntityGraph(attributePaths = {"user", "classroom", "classroom.building"})
     List<Reservation> findByClassroomIdAndStartTimeBetween(String classroomId, LocalDateTime startTime, LocalDateTime endTime, Sort sort);
     List<Reservation> findByUserIdAndStartTimeBetween(String userId, LocalDateTime startTime, LocalDateTime endTime, Sort sort);
     List<Reservation> findByStatusAndStartTimeBetween(ReservationStatus status, LocalDateTime startTime, LocalDateTime endTime, Sort sort);
@@ -36,12 +56,32 @@ public interface ReservationRepository extends JpaRepository<Reservation, String
     @Query("DELETE FROM Reservation r WHERE r.user.id = :userId")
     void deleteAllByUserId(@Param("userId") String userId);
 
+    // Tramos por aula de las reservas de un usuario, para recalcular el acumulado diario tras borrarlas
+    @Query("SELECT new com.backend.IMonitoring.dto.ClassroomUsageSpan(r.classroom.id, MIN(r.startTime), MAX(r.endTime)) " +
+            "FROM Reservation r WHERE r.user.id = :userId GROUP BY r.classroom.id")
+    List<ClassroomUsageSpan> findClassroomSpansByUserId(@Param("userId") String userId);
+
+    @Query("SELECT MIN(r.startTime) FROM Reservation r")
+    LocalDateTime findEarliestStartTime();
+
+    @Query("SELECT MAX(r.endTime) FROM Reservation r")
+    LocalDateTime findLatestEndTime();
+
     @Query("SELECT r FROM Reservation r WHERE r.user.id = :userId AND r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA AND r.startTime > :currentTime")
     List<Reservation> findUpcomingConfirmedByUserId(@Param("userId") String userId, @Param("currentTime") LocalDateTime currentTime, Sort sort);
 
     @Query("SELECT r FROM Reservation r WHERE r.classroom.id IS NOT NULL AND r.startTime <= :now AND r.endTime > :now AND r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA")
     List<Reservation> findCurrentReservations(@Param("now") LocalDateTime now);
 
+    @Query("SELECT r FROM Reservation r LEFT JOIN FETCH r.user WHERE r.classroom.id = :classroomId " +
+            "AND r.endTime > :from AND r.startTime < :to " +
+            "AND r.status IN (com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA, com.backend.IMonitoring.model.ReservationStatus.PENDIENTE) " +
+            "ORDER BY r.startTime ASC")
+    List<Reservation> findUpcomingByClassroomId(@Param("classroomId") String classroomId,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to,
+                                                Pageable pageable);
+
     @Query("SELECT r FROM Reservation r WHERE r.classroom.id = :classroomId AND r.startTime >= :startDate AND r.endTime <= :endDate")
     List<Reservation> findByClassroomIdAndDateTimeRange(@Param("classroomId") String classroomId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
@@ -63,6 +103,131 @@ public interface ReservationRepository extends JpaRepository<Reservation, String
             @Param("baseDate") LocalDateTime baseDate
     );
 
-    @Query("SELECT r FROM Reservation r WHERE r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA AND r.endTime < :now ORDER BY r.startTime DESC")
-    List<Reservation> findPastConfirmedReservationsAsLogs(@Param("now") LocalDateTime now);
-}
\ No newline at end of file
+    // --- Lecturas en streaming (cursor con fetch size, sin materializar la tabla) ---
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Reservation r LEFT JOIN FETCH r.classroom c LEFT JOIN FETCH c.building LEFT JOIN FETCH r.user " +
+            "WHERE (:status IS NULL OR r.status = :status) ORDER BY r.startTime DESC")
+    Stream<Reservation> streamByStatusWithDetails(@Param("status") ReservationStatus status);
+
+    // Reservas confirmadas de la ventana de exportación con aula, edificio y usuario ya cargados.
+    // La institución se compara sobre la de la reserva o, si no tiene, la del usuario (patrón LIKE en minúsculas).
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.classroom c LEFT JOIN FETCH c.building JOIN FETCH r.user u " +
+            "WHERE r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA " +
+            "AND r.startTime >= :from AND (CAST(:to AS LocalDateTime) IS NULL OR r.startTime < :to) " +
+            "AND (:institutionPattern IS NULL OR LOWER(COALESCE(NULLIF(r.institution, ''), u.institution)) LIKE :institutionPattern) " +
+            "ORDER BY r.startTime")
+    List<Reservation> findConfirmedForExport(@Param("from") LocalDateTime from,
+                                             @Param("to") LocalDateTime to,
+                                             @Param("institutionPattern") String institutionPattern);
+
+    // Feeds de horario (CSV / iCalendar) por aula, edificio o usuario; se filtra por uno solo de los tres
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.backend.IMonitoring.dto.ScheduleFeedRow(r.id, c.name, b.name, u.name, r.purpose, r.status, r.startTime, r.endTime, r.updatedAt) " +
+            "FROM Reservation r JOIN r.classroom c LEFT JOIN c.building b JOIN r.user u " +
+            "WHERE r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA " +
+            "AND r.startTime < :to AND r.endTime > :from " +
+            "AND (:classroomId IS NULL OR c.id = :classroomId) " +
+            "AND (:buildingId IS NULL OR b.id = :buildingId) " +
+            "AND (:userId IS NULL OR u.id = :userId) " +
+            "ORDER BY r.startTime")
+    Stream<ScheduleFeedRow> streamFeedRows(@Param("classroomId") String classroomId,
+                                           @Param("buildingId") String buildingId,
+                                           @Param("userId") String userId,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(r) AS total, MAX(r.updatedAt) AS lastUpdated " +
+            "FROM Reservation r JOIN r.classroom c LEFT JOIN c.building b JOIN r.user u " +
+            "WHERE r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA " +
+            "AND r.startTime < :to AND r.endTime > :from " +
+            "AND (:classroomId IS NULL OR c.id = :classroomId) " +
+            "AND (:buildingId IS NULL OR b.id = :buildingId) " +
+            "AND (:userId IS NULL OR u.id = :userId)")
+    FeedVersionRow findFeedVersion(@Param("classroomId") String classroomId,
+                                   @Param("buildingId") String buildingId,
+                                   @Param("userId") String userId,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to);
+
+    // Lectura completa y compacta para la instantánea columnar de analítica. La institución es la de la reserva
+    // y, si no tiene, la del usuario: la misma regla que las exportaciones de horario
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "2000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.backend.IMonitoring.dto.ReservationSnapshotRow(c.id, c.name, b.id, b.name, u.id, u.role, " +
+            "COALESCE(NULLIF(r.institution, ''), u.institution), r.status, r.startTime, r.endTime) " +
+            "FROM Reservation r JOIN r.classroom c LEFT JOIN c.building b JOIN r.user u")
+    Stream<ReservationSnapshotRow> streamSnapshotRows();
+
+    // Tramos confirmados para el mapa de calor: solo aula e intervalo, sin cargar entidades
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.backend.IMonitoring.dto.ClassroomUsageSpan(c.id, r.startTime, r.endTime) " +
+            "FROM Reservation r JOIN r.classroom c " +
+            "WHERE r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA " +
+            "AND r.startTime < :to AND r.endTime > :from " +
+            "AND (:buildingId IS NULL OR c.building.id = :buildingId) " +
+            "AND (:type IS NULL OR c.type = :type)")
+    Stream<ClassroomUsageSpan> streamConfirmedSpans(@Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to,
+                                                    @Param("buildingId") String buildingId,
+                                                    @Param("type") ClassroomType type);
+
+    // Bitácora de uso: proyección directa con paginación por keyset (startTime, id) descendente.
+    // La primera página se detecta por cursorId: PostgreSQL no deduce el tipo de un timestamp nulo en "? IS NULL".
+    @Query("SELECT new com.backend.IMonitoring.dto.UsageLogDTO(r.id, c.name, b.name, u.name, u.role, r.startTime, r.endTime, r.purpose) " +
+            "FROM Reservation r JOIN r.classroom c LEFT JOIN c.building b JOIN r.user u " +
+            "WHERE r.status = com.backend.IMonitoring.model.ReservationStatus.CONFIRMADA AND r.endTime < :now " +
+            "AND r.startTime >= :from AND r.startTime < :to " +
+            "AND (:classroomId IS NULL OR c.id = :classroomId) " +
+            "AND (:buildingId IS NULL OR b.id = :buildingId) " +
+            "AND (:role IS NULL OR u.role = :role) " +
+            "AND (:userId IS NULL OR u.id = :userId) " +
+            "AND (:cursorId IS NULL OR r.startTime < :cursorStart OR (r.startTime = :cursorStart AND r.id < :cursorId)) " +
+            "ORDER BY r.startTime DESC, r.id DESC")
+    List<UsageLogDTO> findUsageLogPage(@Param("now") LocalDateTime now,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("classroomId") String classroomId,
+                                       @Param("buildingId") String buildingId,
+                                       @Param("role") Rol role,
+                                       @Param("userId") String userId,
+                                       @Param("cursorStart") LocalDateTime cursorStart,
+                                       @Param("cursorId") String cursorId,
+                                       Limit limit);
+
+    // Reporte de cancelaciones: conteos por estado y motivo resueltos en la base (índice status, start_time)
+    @Query("SELECT r.status AS status, r.purpose AS reason, COUNT(r) AS total FROM Reservation r " +
+            "WHERE r.status IN :statuses AND r.startTime >= :from AND r.startTime < :to " +
+            "GROUP BY r.status, r.purpose")
+    List<CancellationReasonRow> countByStatusAndReason(@Param("statuses") List<ReservationStatus> statuses,
+                                                       @Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    // Detalle de cancelaciones/rechazos con paginación por keyset (startTime, id) descendente; primera página por cursorId
+    @Query("SELECT new com.backend.IMonitoring.dto.RejectedReservationDTO(r.id, u.name, c.name, r.status, r.purpose, r.startTime) " +
+            "FROM Reservation r JOIN r.classroom c JOIN r.user u " +
+            "WHERE r.status IN :statuses AND r.startTime >= :from AND r.startTime < :to " +
+            "AND (:cursorId IS NULL OR r.startTime < :cursorStart OR (r.startTime = :cursorStart AND r.id < :cursorId)) " +
+            "ORDER BY r.startTime DESC, r.id DESC")
+    List<RejectedReservationDTO> findCancellationDetailPage(@Param("statuses") List<ReservationStatus> statuses,
+                                                            @Param("from") LocalDateTime from,
+                                                            @Param("to") LocalDateTime to,
+                                                            @Param("cursorStart") LocalDateTime cursorStart,
+                                                            @Param("cursorId") String cursorId,
+                                                            Limit limit);
+}
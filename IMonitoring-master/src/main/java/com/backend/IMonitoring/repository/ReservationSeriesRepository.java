@@ -0,0 +1,15 @@
+package com.backend.IMonitoring.repository;
+
+import com.backend.IMonitoring.model.ReservationSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReservationSeriesRepository extends JpaRepository<ReservationSeries, String> {
+
+    @Modifying
+    @Query("DELETE FROM ReservationSeries s WHERE NOT EXISTS (SELECT 1 FROM Reservation r WHERE r.groupId = s.groupId)")
+    void deleteOrphanSeries();
+}
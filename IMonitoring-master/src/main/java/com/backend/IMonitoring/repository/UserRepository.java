@@ -1,17 +1,34 @@
 package com.backend.IMonitoring.repository;
 
+import com.backend.IMonitoring.dto.UserCountRow;
 import com.backend.IMonitoring.model.User;
 import com.backend.IMonitoring.model.Rol;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByEmail(String email);
+
+    // Cuáles de estos correos ya existen, en una sola consulta (cargas masivas)
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
     List<User> findByRole(Rol role); 
     List<User> findByRole(Rol role, Sort sort); 
+
+    // Conteos por rol, institución y carrera en una sola pasada, sin cargar filas de usuario
+    @Query(value = "SELECT CASE WHEN GROUPING(u.role) = 0 THEN 'ROLE' " +
+            "WHEN GROUPING(u.institution) = 0 THEN 'INSTITUTION' " +
+            "WHEN GROUPING(u.career) = 0 THEN 'CAREER' ELSE 'TOTAL' END AS dimension, " +
+            "COALESCE(u.role, u.institution, u.career) AS label, COUNT(*) AS total " +
+            "FROM users u GROUP BY GROUPING SETS ((u.role), (u.institution), (u.career), ())",
+            nativeQuery = true)
+    List<UserCountRow> countByRoleInstitutionAndCareer();
 }
\ No newline at end of file
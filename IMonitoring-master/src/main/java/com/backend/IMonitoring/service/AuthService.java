@@ -3,6 +3,7 @@ package com.backend.IMonitoring.service;
 import com.backend.IMonitoring.dto.AuthRequest;
 import com.backend.IMonitoring.dto.AuthResponse;
 import com.backend.IMonitoring.dto.RegisterRequest;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
 import com.backend.IMonitoring.model.User;
 import com.backend.IMonitoring.model.VerificationToken;
 import com.backend.IMonitoring.repository.UserRepository;
@@ -13,6 +14,7 @@ import com.backend.IMonitoring.exceptions.ResourceNotFoundException;
 import com.backend.IMonitoring.exceptions.UnauthorizedAccessException;
 import com.backend.IMonitoring.exceptions.UserAlreadyExistsException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -34,6 +36,7 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final VerificationTokenRepository tokenRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -50,6 +53,7 @@ public class AuthService {
                 .enabled(false)
                 .build();
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserDataChangedEvent(savedUser.getId()));
 
         String tokenString = UUID.randomUUID().toString();
         VerificationToken verificationToken = new VerificationToken(tokenString, savedUser);
@@ -1,15 +1,20 @@
 package com.backend.IMonitoring.service;
 
 import com.backend.IMonitoring.dto.BuildingRequestDTO;
+import com.backend.IMonitoring.dto.BuildingSummaryDTO;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
 import com.backend.IMonitoring.model.Building;
 import com.backend.IMonitoring.model.Classroom;
 import com.backend.IMonitoring.repository.BuildingRepository;
 import com.backend.IMonitoring.repository.ClassroomRepository;
 import com.backend.IMonitoring.exceptions.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 @Service
@@ -17,9 +22,15 @@ import java.util.List;
 public class BuildingService {
     private final BuildingRepository buildingRepository;
     private final ClassroomRepository classroomRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public List<Building> getAllBuildings() {
-        return buildingRepository.findAll();
+    public List<BuildingSummaryDTO> getAllBuildingSummaries() {
+        return buildingRepository.findAllSummaries(LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    public BuildingSummaryDTO getBuildingSummaryById(String id) {
+        return buildingRepository.findSummaryById(id, LocalDateTime.now(ZoneOffset.UTC))
+                .orElseThrow(() -> new ResourceNotFoundException("Edificio no encontrado con ID: " + id));
     }
 
     public Building getBuildingById(String id) {
@@ -41,7 +52,10 @@ public class BuildingService {
         Building existingBuilding = getBuildingById(id);
         existingBuilding.setName(buildingRequestDTO.getName());
         existingBuilding.setLocation(buildingRequestDTO.getLocation());
-        return buildingRepository.save(existingBuilding);
+        Building saved = buildingRepository.save(existingBuilding);
+        // El nombre del edificio aparece en los reportes de aulas
+        eventPublisher.publishEvent(new ClassroomDataChangedEvent(null));
+        return saved;
     }
 
     @Transactional
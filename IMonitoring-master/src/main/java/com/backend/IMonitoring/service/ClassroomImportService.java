@@ -0,0 +1,204 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ClassroomImportKeyRow;
+import com.backend.IMonitoring.dto.ImportResultDTO;
+import com.backend.IMonitoring.dto.ImportRowResultDTO;
+import com.backend.IMonitoring.dto.ImportRowStatus;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
+import com.backend.IMonitoring.model.Building;
+import com.backend.IMonitoring.model.ClassroomType;
+import com.backend.IMonitoring.repository.BuildingRepository;
+import com.backend.IMonitoring.repository.ClassroomRepository;
+import com.backend.IMonitoring.utils.ExcelRowStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+// Carga masiva de aulas: edificios y aulas existentes se leen una vez, las filas se validan en memoria
+// y se escriben por JDBC batch. La clave es (edificio, nombre): volver a cargar el mismo inventario
+// actualiza capacidad y tipo en lugar de duplicar aulas.
+@Service
+@RequiredArgsConstructor
+public class ClassroomImportService {
+
+    // Columnas de la plantilla de carga: nombre, capacidad, tipo, edificio
+    private static final int CLASSROOM_IMPORT_COLUMNS = 4;
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_CLASSROOM_SQL =
+            "INSERT INTO classroom (id, name, capacity, type, resources, is_under_maintenance, building_id) " +
+            "VALUES (?, ?, ?, ?, CAST('{}' AS jsonb), FALSE, ?)";
+    private static final String UPDATE_CLASSROOM_SQL =
+            "UPDATE classroom SET capacity = ?, type = ? WHERE id = ?";
+
+    private final ClassroomRepository classroomRepository;
+    private final BuildingRepository buildingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Aula ya guardada (o insertada en esta carga) bajo su clave
+    private record KnownClassroom(String id, int capacity, ClassroomType type) {
+    }
+
+    private static final class ImportRun {
+        final ImportProgress progress;
+        final Map<String, String> buildingIdsByName = new HashMap<>();
+        final Map<String, KnownClassroom> classroomsByKey = new HashMap<>();
+        final Set<String> keysInFile = new HashSet<>();
+        final List<Object[]> inserts = new ArrayList<>(BATCH_SIZE);
+        final List<Object[]> updates = new ArrayList<>(BATCH_SIZE);
+        final List<ImportRowResultDTO> rows = new ArrayList<>();
+
+        ImportRun(ImportProgress progress) {
+            this.progress = progress;
+        }
+
+        void record(int rowNumber, ImportRowStatus status, String message) {
+            rows.add(ImportRowResultDTO.builder().row(rowNumber).status(status).message(message).build());
+        }
+    }
+
+    // Recibe el temporal de ExcelRowStream.copyToTempFile y lo borra al terminar
+    @Transactional
+    public ImportResultDTO importClassrooms(Path file, ImportProgress progress) throws IOException {
+        ImportRun run = new ImportRun(progress);
+        for (Building building : buildingRepository.findAll()) {
+            run.buildingIdsByName.put(normalize(building.getName()), building.getId());
+        }
+        for (ClassroomImportKeyRow existing : classroomRepository.findAllImportKeys()) {
+            // Si ya hay duplicados de cargas anteriores, se actualiza siempre el primero
+            run.classroomsByKey.putIfAbsent(key(existing.getBuildingId(), existing.getName()),
+                    new KnownClassroom(existing.getId(), existing.getCapacity(), existing.getType()));
+        }
+
+        // Lectura por eventos desde un temporal: la hoja nunca se carga completa en memoria
+        try (ExcelRowStream rows = ExcelRowStream.open(file, CLASSROOM_IMPORT_COLUMNS)) {
+            for (ExcelRowStream.ExcelRow row : rows) {
+                if (row.rowNumber() == 1) continue;
+                progress.checkCancelled();
+                readRow(row, run);
+                if (run.inserts.size() + run.updates.size() >= BATCH_SIZE) {
+                    flush(run);
+                }
+            }
+        }
+        flush(run);
+        progress.checkCancelled();
+
+        if (progress.getCreated() + progress.getUpdated() > 0) {
+            eventPublisher.publishEvent(new ClassroomDataChangedEvent(null));
+        }
+
+        return ImportResultDTO.builder()
+                .rowsRead(progress.getRowsRead())
+                .created(progress.getCreated())
+                .updated(progress.getUpdated())
+                .unchanged(progress.getUnchanged())
+                .failed(progress.getFailed())
+                .rows(run.rows)
+                .message(summary(run))
+                .build();
+    }
+
+    private void readRow(ExcelRowStream.ExcelRow row, ImportRun run) {
+        String name = row.cell(0);
+        String capacityStr = row.cell(1);
+        String typeStr = row.cell(2);
+        String buildingName = row.cell(3);
+        if (name.isEmpty() || capacityStr.isEmpty() || buildingName.isEmpty()) return;
+        run.progress.rowRead();
+
+        try {
+            String buildingId = run.buildingIdsByName.get(normalize(buildingName));
+            if (buildingId == null) {
+                throw new IllegalArgumentException("El edificio '" + buildingName + "' no existe en la base de datos.");
+            }
+            int capacity = parseCapacity(capacityStr);
+            ClassroomType type = parseType(typeStr);
+
+            String key = key(buildingId, name);
+            if (!run.keysInFile.add(key)) {
+                throw new IllegalArgumentException("El aula '" + name + "' del edificio '" + buildingName + "' está repetida en el archivo.");
+            }
+
+            KnownClassroom known = run.classroomsByKey.get(key);
+            if (known == null) {
+                String id = UUID.randomUUID().toString();
+                run.inserts.add(new Object[]{id, name, capacity, type.name(), buildingId});
+                run.classroomsByKey.put(key, new KnownClassroom(id, capacity, type));
+                run.progress.rowCreated();
+                run.record(row.rowNumber(), ImportRowStatus.CREADO, null);
+            } else if (known.capacity() == capacity && known.type() == type) {
+                run.progress.rowUnchanged();
+                run.record(row.rowNumber(), ImportRowStatus.SIN_CAMBIOS, null);
+            } else {
+                run.updates.add(new Object[]{capacity, type.name(), known.id()});
+                run.progress.rowUpdated();
+                run.record(row.rowNumber(), ImportRowStatus.ACTUALIZADO,
+                        "Capacidad " + known.capacity() + " → " + capacity + ", tipo " + known.type() + " → " + type);
+            }
+        } catch (Exception e) {
+            run.progress.rowFailed();
+            run.record(row.rowNumber(), ImportRowStatus.ERROR, e.getMessage());
+        }
+    }
+
+    private void flush(ImportRun run) {
+        if (!run.inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CLASSROOM_SQL, run.inserts);
+            run.inserts.clear();
+        }
+        if (!run.updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_CLASSROOM_SQL, run.updates);
+            run.updates.clear();
+        }
+    }
+
+    private int parseCapacity(String value) {
+        try {
+            int capacity = Integer.parseInt(value);
+            if (capacity > 0) return capacity;
+        } catch (NumberFormatException ignored) {
+            // se informa abajo con el mismo mensaje
+        }
+        throw new IllegalArgumentException("La capacidad '" + value + "' debe ser un número entero mayor que cero.");
+    }
+
+    private ClassroomType parseType(String value) {
+        try {
+            return ClassroomType.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de aula no válido: '" + value + "'. Valores permitidos: " + Arrays.toString(ClassroomType.values()));
+        }
+    }
+
+    private String summary(ImportRun run) {
+        ImportProgress progress = run.progress;
+        String counts = progress.getCreated() + " aulas creadas, " + progress.getUpdated() + " actualizadas y "
+                + progress.getUnchanged() + " sin cambios";
+        if (progress.getFailed() > 0) {
+            String primerError = run.rows.stream()
+                    .filter(r -> r.getStatus() == ImportRowStatus.ERROR)
+                    .findFirst()
+                    .map(r -> "Fila " + r.getRow() + ": " + r.getMessage())
+                    .orElse("Error desconocido");
+            return "Carga masiva: " + counts + ". Fallaron " + progress.getFailed() + " (Ej: " + primerError + ")";
+        }
+        return "Carga masiva exitosa: " + counts + ".";
+    }
+
+    // Nombres comparados sin distinguir mayúsculas ni espacios de los extremos
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String buildingId, String classroomName) {
+        return buildingId + "|" + normalize(classroomName);
+    }
+}
@@ -4,6 +4,7 @@ import com.backend.IMonitoring.dto.ClassroomAvailabilitySummaryDTO;
 import com.backend.IMonitoring.dto.AvailabilityRequest;
 import com.backend.IMonitoring.dto.ClassroomDTO;
 import com.backend.IMonitoring.dto.ClassroomRequestDTO;
+import com.backend.IMonitoring.dto.ReservationResponseDTO;
 import com.backend.IMonitoring.model.Classroom;
 import com.backend.IMonitoring.model.ClassroomType;
 import com.backend.IMonitoring.model.Building;
@@ -11,20 +12,19 @@ import com.backend.IMonitoring.model.Reservation;
 import com.backend.IMonitoring.repository.ClassroomRepository;
 import com.backend.IMonitoring.repository.BuildingRepository;
 import com.backend.IMonitoring.repository.ReservationRepository;
+import com.backend.IMonitoring.repository.ReservationSeriesRepository;
 import com.backend.IMonitoring.exceptions.ResourceNotFoundException;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,13 +32,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ClassroomService {
 
+    // Límites de la ventana de próximas reservas que se adjunta a un aula
+    private static final int MAX_UPCOMING_DAYS = 30;
+    private static final int MAX_UPCOMING_RESERVATIONS = 50;
+
     private final ClassroomRepository classroomRepository;
     private final BuildingRepository buildingRepository;
     private final ReservationRepository reservationRepository;
+    private final ReservationSeriesRepository reservationSeriesRepository;
+    private final DailyUsageRollupService dailyUsageRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Transactional
+    @Transactional(readOnly = true)
     public List<ClassroomDTO> getAllClassroomsDTO() {
-        List<Classroom> classrooms = classroomRepository.findAll(Sort.by(Sort.Direction.ASC, "name"));
+        return convertToDTOList(classroomRepository.findAll(Sort.by(Sort.Direction.ASC, "name")));
+    }
+
+    private List<ClassroomDTO> convertToDTOList(List<Classroom> classrooms) {
         return classrooms.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -65,8 +75,26 @@ public class ClassroomService {
                 .orElseThrow(() -> new ResourceNotFoundException("Aula no encontrada con ID: " + id));
     }
 
+    @Transactional(readOnly = true)
+    public ClassroomDTO getClassroomDTOById(String id, Integer upcomingDays) {
+        ClassroomDTO dto = convertToDTO(getClassroomById(id));
+        if (upcomingDays != null) {
+            if (upcomingDays < 1 || upcomingDays > MAX_UPCOMING_DAYS) {
+                throw new IllegalArgumentException("La ventana de próximas reservas debe estar entre 1 y " + MAX_UPCOMING_DAYS + " días.");
+            }
+            LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+            List<ReservationResponseDTO> upcoming = reservationRepository
+                    .findUpcomingByClassroomId(id, now, now.plusDays(upcomingDays), PageRequest.of(0, MAX_UPCOMING_RESERVATIONS))
+                    .stream()
+                    .map(ReservationResponseDTO::fromEntity)
+                    .collect(Collectors.toList());
+            dto.setUpcomingReservations(upcoming);
+        }
+        return dto;
+    }
+
     @Transactional
-    public Classroom createClassroomFromDTO(ClassroomRequestDTO dto) {
+    public ClassroomDTO createClassroomFromDTO(ClassroomRequestDTO dto) {
         Building building = buildingRepository.findById(dto.getBuildingId())
                 .orElseThrow(() -> new ResourceNotFoundException("Edificio no encontrado con ID: " + dto.getBuildingId() + " al crear aula."));
 
@@ -78,11 +106,13 @@ public class ClassroomService {
                 .isUnderMaintenance(dto.getIsUnderMaintenance() != null ? dto.getIsUnderMaintenance() : false)
                 .building(building)
                 .build();
-        return classroomRepository.save(classroom);
+        Classroom saved = classroomRepository.save(classroom);
+        eventPublisher.publishEvent(new ClassroomDataChangedEvent(saved.getId()));
+        return convertToDTO(saved);
     }
 
     @Transactional
-    public Classroom updateClassroomFromDTO(String classroomId, ClassroomRequestDTO dto) {
+    public ClassroomDTO updateClassroomFromDTO(String classroomId, ClassroomRequestDTO dto) {
         Classroom classroomToUpdate = getClassroomById(classroomId);
         Building building = buildingRepository.findById(dto.getBuildingId())
                 .orElseThrow(() -> new ResourceNotFoundException("Edificio no encontrado con ID: " + dto.getBuildingId() + " al actualizar aula."));
@@ -95,7 +125,9 @@ public class ClassroomService {
             classroomToUpdate.setIsUnderMaintenance(dto.getIsUnderMaintenance());
         }
         classroomToUpdate.setBuilding(building);
-        return classroomRepository.save(classroomToUpdate);
+        Classroom saved = classroomRepository.save(classroomToUpdate);
+        eventPublisher.publishEvent(new ClassroomDataChangedEvent(saved.getId()));
+        return convertToDTO(saved);
     }
 
     @Transactional
@@ -106,19 +138,44 @@ public class ClassroomService {
         List<Reservation> reservationsInClassroom = reservationRepository.findByClassroomId(id, Sort.unsorted());
         if (reservationsInClassroom != null && !reservationsInClassroom.isEmpty()) {
             reservationRepository.deleteAll(reservationsInClassroom);
+            reservationRepository.flush();
+            reservationSeriesRepository.deleteOrphanSeries();
         }
+        dailyUsageRollupService.removeClassroom(id);
         classroomRepository.deleteById(id);
+        eventPublisher.publishEvent(new ClassroomDataChangedEvent(id));
     }
 
-    public List<Classroom> getClassroomsByType(ClassroomType type) {
-        return classroomRepository.findByType(type);
+    @Transactional(readOnly = true)
+    public List<ClassroomDTO> getClassroomsByType(ClassroomType type) {
+        return convertToDTOList(classroomRepository.findByType(type));
     }
 
-    public List<Classroom> getClassroomsByMinCapacity(Integer minCapacity) {
+    @Transactional(readOnly = true)
+    public List<ClassroomDTO> getClassroomsByMinCapacity(Integer minCapacity) {
         if (minCapacity == null || minCapacity < 0) {
             throw new IllegalArgumentException("La capacidad mínima debe ser un número positivo o cero.");
         }
-        return classroomRepository.findByCapacityGreaterThanEqual(minCapacity);
+        return convertToDTOList(classroomRepository.findByCapacityGreaterThanEqual(minCapacity));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ClassroomDTO> getClassroomsByBuilding(String buildingId, int page, int size) {
+        if (!buildingRepository.existsById(buildingId)) {
+            throw new ResourceNotFoundException("Edificio no encontrado con ID: " + buildingId);
+        }
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100), Sort.by(Sort.Direction.ASC, "name"));
+        return classroomRepository.findByBuilding_Id(buildingId, pageRequest).map(this::convertToDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ClassroomDTO> getAvailableNowDTO() {
+        return convertToDTOList(getAvailableNow());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ClassroomDTO> getUnavailableNowDTO() {
+        return convertToDTOList(getUnavailableNow());
     }
 
     public List<Classroom> getAvailableNow() {
@@ -147,57 +204,14 @@ public class ClassroomService {
         return new ClassroomAvailabilitySummaryDTO(available.size(), unavailable.size(), (int) total);
     }
 
-    public List<Reservation> getClassroomReservationsForDateRange(String classroomId, LocalDateTime startDate, LocalDateTime endDate) {
+    @Transactional(readOnly = true)
+    public List<ReservationResponseDTO> getClassroomReservationsForDateRange(String classroomId, LocalDateTime startDate, LocalDateTime endDate) {
         if (!classroomRepository.existsById(classroomId)) {
             throw new ResourceNotFoundException("Aula no encontrada con ID: " + classroomId);
         }
-        return reservationRepository.findByClassroomIdAndStartTimeBetween(classroomId, startDate, endDate, Sort.by(Sort.Direction.ASC, "startTime"));
-    }
-    @Transactional
-    public String uploadClassroomsFromExcel(MultipartFile file) throws IOException {
-        int successCount = 0;
-        int errorCount = 0;
-        List<String> errors = new ArrayList<>();
-        DataFormatter formatter = new DataFormatter();
-
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0) continue;
-
-                try {
-                    String name = formatter.formatCellValue(row.getCell(0)).trim();
-                    String capacityStr = formatter.formatCellValue(row.getCell(1)).trim();
-                    String typeStr = formatter.formatCellValue(row.getCell(2)).trim();
-                    String buildingName = formatter.formatCellValue(row.getCell(3)).trim(); // Leemos el nombre
-
-                    if (name.isEmpty() || capacityStr.isEmpty() || buildingName.isEmpty()) continue;
-
-                    Building building = buildingRepository.findByName(buildingName)
-                            .orElseThrow(() -> new ResourceNotFoundException("El edificio '" + buildingName + "' no existe en la base de datos."));
-
-                    Classroom classroom = Classroom.builder()
-                            .name(name)
-                            .capacity(Integer.parseInt(capacityStr))
-                            .type(ClassroomType.valueOf(typeStr.toUpperCase()))
-                            .isUnderMaintenance(false)
-                            .building(building)
-                            .build();
-
-                    classroomRepository.save(classroom);
-                    successCount++;
-                } catch (Exception e) {
-                    errorCount++;
-                    errors.add("Fila " + (row.getRowNum() + 1) + ": " + e.getMessage());
-                }
-            }
-        }
-
-        if (errorCount > 0) {
-            String primerError = errors.isEmpty() ? "Error desconocido" : errors.get(0);
-            return "Se cargaron " + successCount + " aulas. Fallaron " + errorCount + " (Ej: " + primerError + ")";
-        }
-        return "Carga masiva exitosa: " + successCount + " aulas creadas.";
+        return reservationRepository.findByClassroomIdAndStartTimeBetween(classroomId, startDate, endDate, Sort.by(Sort.Direction.ASC, "startTime"))
+                .stream()
+                .map(ReservationResponseDTO::fromEntity)
+                .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+import com.backend.IMonitoring.events.ReservationDataChangedEvent;
+import com.backend.IMonitoring.model.Reservation;
+import com.backend.IMonitoring.repository.ClassroomDailyUsageRepository;
+import com.backend.IMonitoring.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Mantiene la tabla classroom_daily_usage. Cada escritura recalcula solo los días del aula afectada,
+// lo que mantiene exactos los usuarios distintos sin tener que deshacer conteos.
+@Service
+@RequiredArgsConstructor
+public class DailyUsageRollupService {
+
+    private final ClassroomDailyUsageRepository dailyUsageRepository;
+    private final ReservationRepository reservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.rollup.reconcile-days-back:35}")
+    private int reconcileDaysBack;
+
+    @Value("${app.rollup.reconcile-days-ahead:180}")
+    private int reconcileDaysAhead;
+
+    public ClassroomUsageSpan spanOf(Reservation reservation) {
+        return new ClassroomUsageSpan(reservation.getClassroom().getId(), reservation.getStartTime(), reservation.getEndTime());
+    }
+
+    // Un tramo por aula, del inicio más temprano al fin más tardío
+    public List<ClassroomUsageSpan> spansOf(Collection<Reservation> reservations) {
+        Map<String, ClassroomUsageSpan> byClassroom = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            byClassroom.merge(reservation.getClassroom().getId(), spanOf(reservation), (a, b) -> new ClassroomUsageSpan(
+                    a.getClassroomId(),
+                    a.getFrom().isBefore(b.getFrom()) ? a.getFrom() : b.getFrom(),
+                    a.getTo().isAfter(b.getTo()) ? a.getTo() : b.getTo()));
+        }
+        return new ArrayList<>(byClassroom.values());
+    }
+
+    public List<ClassroomUsageSpan> spansForUser(String userId) {
+        return reservationRepository.findClassroomSpansByUserId(userId);
+    }
+
+    @Transactional
+    public void refresh(ClassroomUsageSpan span) {
+        refreshSpans(List.of(span));
+    }
+
+    @Transactional
+    public void refreshReservations(Collection<Reservation> reservations) {
+        refreshSpans(spansOf(reservations));
+    }
+
+    @Transactional
+    public void refreshSpans(Collection<ClassroomUsageSpan> spans) {
+        if (spans.isEmpty()) return;
+        // Las consultas nativas leen la tabla: los cambios pendientes de la sesión deben estar escritos
+        reservationRepository.flush();
+        // Candados en orden de aula para que dos transacciones con varias aulas no se bloqueen entre sí
+        List<ClassroomUsageSpan> ordered = new ArrayList<>(spans);
+        ordered.sort(Comparator.comparing(ClassroomUsageSpan::getClassroomId));
+        for (ClassroomUsageSpan span : ordered) {
+            LocalDate fromDay = span.getFrom().toLocalDate();
+            LocalDate toDay = span.getTo().toLocalDate().plusDays(1);
+            recompute(span.getClassroomId(), fromDay, toDay);
+        }
+        eventPublisher.publishEvent(new ReservationDataChangedEvent(List.copyOf(spans)));
+    }
+
+    @Transactional
+    public void removeClassroom(String classroomId) {
+        dailyUsageRepository.deleteByClassroomId(classroomId);
+    }
+
+    // Reconstruye el acumulado de todas las aulas entre dos fechas (inclusivas); sin fechas, todo el histórico
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        LocalDateTime earliest = reservationRepository.findEarliestStartTime();
+        LocalDateTime latest = reservationRepository.findLatestEndTime();
+        LocalDate fromDay = from != null ? from : (earliest != null ? earliest.toLocalDate() : LocalDate.now());
+        LocalDate toDay = (to != null ? to : (latest != null ? latest.toLocalDate() : LocalDate.now())).plusDays(1);
+        if (!fromDay.isBefore(toDay)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final.");
+        }
+        reservationRepository.flush();
+        int rows = recompute(null, fromDay, toDay);
+        eventPublisher.publishEvent(new ReservationDataChangedEvent(null));
+        return rows;
+    }
+
+    // Tras desplegar el acumulado la tabla está vacía: se llena una vez desde el histórico de reservas.
+    // El candado global hace que, con varias instancias arrancando a la vez, solo la primera lo construya.
+    @Transactional
+    public void backfillIfEmpty() {
+        dailyUsageRepository.lockAllClassrooms();
+        if (dailyUsageRepository.count() > 0 || reservationRepository.count() == 0) return;
+        int rows = rebuild(null, null);
+        System.out.println("Acumulado diario de uso construido desde el histórico: " + rows + " filas.");
+    }
+
+    // Reconciliación nocturna: corrige cualquier deriva por escrituras que no pasaron por ReservationService
+    @Scheduled(cron = "${app.rollup.reconcile-cron:0 30 2 * * *}")
+    @Transactional
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        recompute(null, today.minusDays(reconcileDaysBack), today.plusDays(reconcileDaysAhead + 1L));
+        eventPublisher.publishEvent(new ReservationDataChangedEvent(null));
+    }
+
+    // Reemplaza las filas de [fromDay, toDay) por lo que dicen las reservas. El candado se toma antes de leer:
+    // en READ COMMITTED la siguiente sentencia ya ve lo confirmado por quien lo tenía.
+    private int recompute(String classroomId, LocalDate fromDay, LocalDate toDay) {
+        if (classroomId == null) {
+            dailyUsageRepository.lockAllClassrooms();
+        } else {
+            dailyUsageRepository.lockClassroom(classroomId);
+        }
+        dailyUsageRepository.deleteStaleRange(classroomId, fromDay, toDay);
+        return dailyUsageRepository.upsertRange(classroomId, fromDay.atStartOfDay(), toDay.atStartOfDay());
+    }
+}
@@ -0,0 +1,273 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ImportJobDTO;
+import com.backend.IMonitoring.dto.ImportJobStatus;
+import com.backend.IMonitoring.dto.ImportJobType;
+import com.backend.IMonitoring.dto.ImportResultDTO;
+import com.backend.IMonitoring.dto.ImportRowResultDTO;
+import com.backend.IMonitoring.dto.ImportRowStatus;
+import com.backend.IMonitoring.exceptions.ResourceNotFoundException;
+import com.backend.IMonitoring.exceptions.UnauthorizedAccessException;
+import com.backend.IMonitoring.model.Rol;
+import com.backend.IMonitoring.model.User;
+import com.backend.IMonitoring.utils.CsvUtils;
+import com.backend.IMonitoring.utils.ExcelRowStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+// Cargas masivas de usuarios y aulas como trabajos en segundo plano. La petición solo copia el archivo
+// a un temporal y encola; el avance se consulta por id y las filas con error se descargan como CSV.
+@Service
+@RequiredArgsConstructor
+public class ImportJobService {
+
+    private final UserImportService userImportService;
+    private final ClassroomImportService classroomImportService;
+    private final ExecutorService importExecutor;
+
+    @Value("${app.imports.job-retention:PT1H}")
+    private Duration jobRetention;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    private interface ImportTask {
+        ImportResultDTO run(Path file, ImportProgress progress) throws IOException;
+    }
+
+    private static final class ImportJob {
+        final String id = UUID.randomUUID().toString();
+        final ImportJobType type;
+        final String fileName;
+        final String submittedById;
+        final String submittedBy;
+        final Path file;
+        final ImportProgress progress = new ImportProgress();
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        ImportJobStatus status = ImportJobStatus.PENDIENTE;
+        LocalDateTime startedAt;
+        LocalDateTime finishedAt;
+        long startedNanos;
+        long finishedNanos;
+        String message;
+        String error;
+        List<ImportRowResultDTO> errorRows = List.of();
+
+        ImportJob(ImportJobType type, String fileName, User submitter, Path file) {
+            this.type = type;
+            this.fileName = fileName;
+            this.submittedById = submitter.getId();
+            this.submittedBy = submitter.getEmail();
+            this.file = file;
+        }
+    }
+
+    public ImportJobDTO submitUserImport(MultipartFile file, User performingUser) throws IOException {
+        return submit(ImportJobType.USUARIOS, file, performingUser,
+                (path, progress) -> userImportService.importUsers(path, performingUser, progress));
+    }
+
+    public ImportJobDTO submitClassroomImport(MultipartFile file, User performingUser) throws IOException {
+        return submit(ImportJobType.AULAS, file, performingUser, classroomImportService::importClassrooms);
+    }
+
+    private ImportJobDTO submit(ImportJobType type, MultipartFile file, User performingUser, ImportTask task) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("El archivo está vacío.");
+        }
+        String fileName = file.getOriginalFilename();
+        if (fileName == null || !fileName.toLowerCase(Locale.ROOT).endsWith(".xlsx")) {
+            throw new IllegalArgumentException("Solo se aceptan archivos Excel (.xlsx).");
+        }
+
+        Path tempFile = ExcelRowStream.copyToTempFile(file);
+        ImportJob job = new ImportJob(type, fileName, performingUser, tempFile);
+        jobs.put(job.id, job);
+        try {
+            importExecutor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            deleteQuietly(tempFile);
+            throw new RejectedExecutionException("Hay demasiadas cargas masivas en cola; intente de nuevo en unos minutos.", e);
+        }
+
+        ImportJobDTO dto = toDTO(job);
+        dto.setMessage("Archivo recibido; la carga se procesa en segundo plano.");
+        return dto;
+    }
+
+    public ImportJobDTO getJob(String jobId, User currentUser) {
+        return toDTO(findJob(jobId, currentUser));
+    }
+
+    // Pendiente: no llega a empezar. En proceso: se detiene en la siguiente fila y se revierte lo escrito.
+    public ImportJobDTO cancel(String jobId, User currentUser) {
+        ImportJob job = findJob(jobId, currentUser);
+        synchronized (job) {
+            if (job.status == ImportJobStatus.PENDIENTE) {
+                job.status = ImportJobStatus.CANCELADO;
+                job.message = "Carga cancelada antes de empezar.";
+                job.finishedAt = LocalDateTime.now();
+            } else if (job.status == ImportJobStatus.EN_PROCESO) {
+                job.progress.requestCancel();
+            } else {
+                throw new IllegalArgumentException("La carga ya terminó (estado: " + job.status + ").");
+            }
+        }
+        return toDTO(job);
+    }
+
+    public String errorReportFileName(String jobId, User currentUser) {
+        ImportJob job = findJob(jobId, currentUser);
+        return "errores_" + job.type.name().toLowerCase(Locale.ROOT) + "_" + job.id.substring(0, 8) + ".csv";
+    }
+
+    // Filas con error de una carga terminada; se piden antes de empezar a escribir la respuesta
+    public List<ImportRowResultDTO> getErrorRows(String jobId, User currentUser) {
+        ImportJob job = findJob(jobId, currentUser);
+        synchronized (job) {
+            if (job.status != ImportJobStatus.COMPLETADO) {
+                throw new IllegalArgumentException("El reporte de errores está disponible cuando la carga termina (estado: " + job.status + ").");
+            }
+            return job.errorRows;
+        }
+    }
+
+    public static void writeErrorReport(List<ImportRowResultDTO> errorRows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("fila,estado,mensaje\r\n");
+        for (ImportRowResultDTO row : errorRows) {
+            writer.write(row.getRow() + "," + row.getStatus() + "," + CsvUtils.field(row.getMessage()) + "\r\n");
+        }
+        writer.flush();
+    }
+
+    private void run(ImportJob job, ImportTask task) {
+        synchronized (job) {
+            if (job.status == ImportJobStatus.CANCELADO) {
+                deleteQuietly(job.file);
+                return;
+            }
+            job.status = ImportJobStatus.EN_PROCESO;
+            job.startedAt = LocalDateTime.now();
+            job.startedNanos = System.nanoTime();
+        }
+
+        ImportJobStatus finalStatus;
+        String message = null;
+        String error = null;
+        List<ImportRowResultDTO> errorRows = List.of();
+        try {
+            ImportResultDTO result = task.run(job.file, job.progress);
+            errorRows = result.getRows().stream()
+                    .filter(row -> row.getStatus() == ImportRowStatus.ERROR)
+                    .toList();
+            message = result.getMessage();
+            finalStatus = ImportJobStatus.COMPLETADO;
+        } catch (CancellationException e) {
+            message = "Carga cancelada; no se guardó ninguna fila.";
+            finalStatus = ImportJobStatus.CANCELADO;
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            finalStatus = ImportJobStatus.FALLIDO;
+        } finally {
+            // ExcelRowStream ya lo borra al cerrarse; esto cubre fallos antes de abrirlo
+            deleteQuietly(job.file);
+        }
+
+        synchronized (job) {
+            job.errorRows = errorRows;
+            job.message = message;
+            job.error = error;
+            job.finishedNanos = System.nanoTime();
+            job.finishedAt = LocalDateTime.now();
+            job.status = finalStatus;
+        }
+    }
+
+    // --- Limpieza ---
+
+    @Scheduled(fixedDelayString = "${app.imports.cleanup-interval:PT10M}")
+    public void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(jobRetention);
+        jobs.values().removeIf(job -> {
+            synchronized (job) {
+                return job.finishedAt != null && job.finishedAt.isBefore(cutoff);
+            }
+        });
+    }
+
+    // --- Auxiliares ---
+
+    // Cada carga la consulta quien la envió; el administrador puede ver todas
+    private ImportJob findJob(String jobId, User currentUser) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Trabajo de carga no encontrado con ID: " + jobId);
+        }
+        if (currentUser.getRole() != Rol.ADMIN && !job.submittedById.equals(currentUser.getId())) {
+            throw new UnauthorizedAccessException("No tienes permiso para consultar esta carga.");
+        }
+        return job;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // queda en el directorio temporal del sistema
+        }
+    }
+
+    private ImportJobDTO toDTO(ImportJob job) {
+        synchronized (job) {
+            ImportProgress progress = job.progress;
+            double rowsPerSecond = 0;
+            if (job.startedAt != null) {
+                long end = job.finishedAt != null ? job.finishedNanos : System.nanoTime();
+                double seconds = (end - job.startedNanos) / 1_000_000_000.0;
+                if (seconds > 0) {
+                    rowsPerSecond = Math.round(progress.getRowsRead() / seconds * 10) / 10.0;
+                }
+            }
+            return ImportJobDTO.builder()
+                    .jobId(job.id)
+                    .type(job.type)
+                    .status(job.status)
+                    .fileName(job.fileName)
+                    .submittedBy(job.submittedBy)
+                    .rowsRead(progress.getRowsRead())
+                    .inserted(progress.getCreated())
+                    .updated(progress.getUpdated())
+                    .unchanged(progress.getUnchanged())
+                    .failed(progress.getFailed())
+                    .rowsPerSecond(rowsPerSecond)
+                    .cancelRequested(progress.isCancelRequested())
+                    .errorReportAvailable(job.status == ImportJobStatus.COMPLETADO)
+                    .submittedAt(job.submittedAt)
+                    .startedAt(job.startedAt)
+                    .finishedAt(job.finishedAt)
+                    .message(job.message)
+                    .error(job.error)
+                    .build();
+        }
+    }
+}
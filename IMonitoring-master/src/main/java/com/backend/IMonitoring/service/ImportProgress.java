@@ -0,0 +1,70 @@
+package com.backend.IMonitoring.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Avance de una carga masiva: lo escribe el hilo de la carga y lo leen las consultas de estado del trabajo
+public final class ImportProgress {
+
+    private final AtomicInteger rowsRead = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger updated = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile boolean cancelRequested;
+
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    public void rowCreated() {
+        created.incrementAndGet();
+    }
+
+    public void rowUpdated() {
+        updated.incrementAndGet();
+    }
+
+    public void rowUnchanged() {
+        unchanged.incrementAndGet();
+    }
+
+    public void rowFailed() {
+        failed.incrementAndGet();
+    }
+
+    public int getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public int getCreated() {
+        return created.get();
+    }
+
+    public int getUpdated() {
+        return updated.get();
+    }
+
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    // Las cargas lo consultan entre filas; la excepción revierte la transacción completa
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("La carga fue cancelada.");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
+import com.backend.IMonitoring.events.ReservationDataChangedEvent;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Caché de resultados de /api/reports. Cada entrada declara de qué datos depende (y, si aplica, su rango
+// de fechas) para invalidarla solo cuando una escritura la afecta. Métricas en /actuator/metrics/reports.cache.*
+@Service
+@RequiredArgsConstructor
+public class ReportCacheService {
+
+    public enum DataDomain { RESERVATIONS, CLASSROOMS, USERS }
+
+    private record CacheKey(String report, List<Object> params, String scope) {}
+
+    private record Entry(Object value, long expiresAt, Set<DataDomain> dependsOn, LocalDate from, LocalDate to) {}
+
+    // Invalidación registrada mientras hay cálculos en curso; sin fechas afecta a todo el dominio
+    private record Invalidation(long generation, DataDomain domain, LocalDate from, LocalDate to) {
+        boolean affects(Set<DataDomain> dependsOn, LocalDate rangeFrom, LocalDate rangeTo) {
+            return dependsOn.contains(domain) && (from == null || overlaps(rangeFrom, rangeTo, from, to));
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.reports.cache.max-entries:200}")
+    private int maxEntries;
+
+    @Value("${app.reports.cache.ttl:PT10M}")
+    private Duration ttl;
+
+    // Orden de acceso para descartar la entrada menos usada al superar maxEntries
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    // Se incrementa en cada invalidación; un cálculo solo se descarta si alguna invalidación posterior a su
+    // inicio toca sus dependencias y su rango de fechas
+    private long generation;
+    private final List<Invalidation> invalidationLog = new ArrayList<>();
+    // Generación de inicio de cada cálculo en curso (generación -> cantidad), para recortar el registro
+    private final TreeMap<Long, Integer> inFlight = new TreeMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("reports.cache.size", entries, map -> {
+            synchronized (map) { return map.size(); }
+        });
+        meterRegistry.gauge("reports.cache.hit.ratio", this, cache -> {
+            long total = cache.hits.get() + cache.misses.get();
+            return total == 0 ? 0.0 : (double) cache.hits.get() / total;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String report, List<Object> params, Set<DataDomain> dependsOn,
+                     LocalDate from, LocalDate to, Supplier<T> loader) {
+        CacheKey key = new CacheKey(report, params, currentScope());
+        long startGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                meterRegistry.counter("reports.cache.requests", "report", report, "result", "hit").increment();
+                return (T) entry.value();
+            }
+            if (entry != null) entries.remove(key);
+            startGeneration = generation;
+            inFlight.merge(startGeneration, 1, Integer::sum);
+        }
+
+        misses.incrementAndGet();
+        meterRegistry.counter("reports.cache.requests", "report", report, "result", "miss").increment();
+        T value = null;
+        boolean computed = false;
+        try {
+            value = meterRegistry.timer("reports.cache.recompute", "report", report).record(loader);
+            computed = true;
+        } finally {
+            synchronized (entries) {
+                if (computed && !invalidatedSince(startGeneration, dependsOn, from, to)) {
+                    entries.put(key, new Entry(value, System.currentTimeMillis() + ttl.toMillis(), dependsOn, from, to));
+                }
+                finishComputation(startGeneration);
+            }
+        }
+        return value;
+    }
+
+    private boolean invalidatedSince(long startGeneration, Set<DataDomain> dependsOn, LocalDate from, LocalDate to) {
+        for (int i = invalidationLog.size() - 1; i >= 0; i--) {
+            Invalidation invalidation = invalidationLog.get(i);
+            if (invalidation.generation() <= startGeneration) break;
+            if (invalidation.affects(dependsOn, from, to)) return true;
+        }
+        return false;
+    }
+
+    // Descarta las invalidaciones que ya no puede necesitar ningún cálculo en curso
+    private void finishComputation(long startGeneration) {
+        inFlight.computeIfPresent(startGeneration, (g, count) -> count == 1 ? null : count - 1);
+        if (inFlight.isEmpty()) {
+            invalidationLog.clear();
+        } else {
+            long oldest = inFlight.firstKey();
+            invalidationLog.removeIf(invalidation -> invalidation.generation() <= oldest);
+        }
+    }
+
+    private static boolean overlaps(LocalDate from, LocalDate to, LocalDate spanFrom, LocalDate spanTo) {
+        return (from == null || !spanTo.isBefore(from)) && (to == null || !spanFrom.isAfter(to));
+    }
+
+    // Los reportes no dependen hoy del usuario, pero la clave separa por rol por si se acotan en el futuro
+    private String currentScope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) return "SISTEMA";
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationDataChanged(ReservationDataChangedEvent event) {
+        if (event.spans() == null) {
+            invalidate(DataDomain.RESERVATIONS, null, null);
+            return;
+        }
+        for (ClassroomUsageSpan span : event.spans()) {
+            invalidate(DataDomain.RESERVATIONS, span.getFrom().toLocalDate(), span.getTo().toLocalDate());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClassroomDataChanged(ClassroomDataChangedEvent event) {
+        invalidate(DataDomain.CLASSROOMS, null, null);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        invalidate(DataDomain.USERS, null, null);
+    }
+
+    private void invalidate(DataDomain domain, LocalDate from, LocalDate to) {
+        synchronized (entries) {
+            Invalidation invalidation = new Invalidation(++generation, domain, from, to);
+            if (!inFlight.isEmpty()) invalidationLog.add(invalidation);
+            int before = entries.size();
+            entries.values().removeIf(entry -> invalidation.affects(entry.dependsOn(), entry.from(), entry.to()));
+            meterRegistry.counter("reports.cache.invalidations").increment(before - entries.size());
+        }
+    }
+}
@@ -3,11 +3,24 @@ package com.backend.IMonitoring.service;
 import com.backend.IMonitoring.dto.*;
 import com.backend.IMonitoring.model.*;
 import com.backend.IMonitoring.repository.*;
+import com.backend.IMonitoring.service.ReportCacheService.DataDomain;
+import com.backend.IMonitoring.utils.CursorUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -15,106 +28,367 @@ public class ReportService {
 
     private final ClassroomRepository classroomRepository;
     private final ReservationRepository reservationRepository;
+    private final ClassroomDailyUsageRepository dailyUsageRepository;
+    private final ReportCacheService reportCache;
+    private final ExecutorService reportExecutor;
     private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final int DEFAULT_REPORT_WINDOW_DAYS = 30;
+    private static final int DEFAULT_CANCELLATION_PAGE_SIZE = 50;
+    private static final int MAX_CANCELLATION_PAGE_SIZE = 200;
+    private static final List<ReservationStatus> CANCELLATION_STATUSES =
+            List.of(ReservationStatus.CANCELADA, ReservationStatus.RECHAZADA);
+    // El detalle muestra nombres de usuario y aula, además de las reservas
+    private static final Set<DataDomain> CANCELLATION_DEPENDENCIES =
+            EnumSet.of(DataDomain.RESERVATIONS, DataDomain.CLASSROOMS, DataDomain.USERS);
+
+    @Value("${app.reports.dashboard.timeout:PT20S}")
+    private Duration dashboardTimeout;
+
+    @Value("${app.reports.opening-hour:7}")
+    private int openingHour;
+
+    @Value("${app.reports.closing-hour:22}")
+    private int closingHour;
+
+    @Value("${app.reports.open-days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY,SATURDAY}")
+    private List<DayOfWeek> openDays;
 
     public List<ResourceReportDTO> getResourceReport(String specificResource) {
-        List<Classroom> classrooms = classroomRepository.findAll();
-        List<ResourceReportDTO> report = new ArrayList<>();
+        String resourceKey = specificResource == null || specificResource.equalsIgnoreCase("ALL") ? "ALL" : specificResource;
+        return reportCache.get("resources", List.of(resourceKey), EnumSet.of(DataDomain.CLASSROOMS), null, null,
+                () -> computeResourceReport(specificResource));
+    }
 
-        for (Classroom room : classrooms) {
-            Map<String, Integer> filteredResources = new HashMap<>();
+    private List<ResourceReportDTO> computeResourceReport(String specificResource) {
+        boolean all = specificResource == null || specificResource.equalsIgnoreCase("ALL");
+        List<ClassroomResourceRow> rows = all
+                ? classroomRepository.findAllResourceRows()
+                : classroomRepository.findResourceRowsHaving(specificResource, jsonPathExists(specificResource));
 
-            if (room.getResources() != null) {
-                if (specificResource == null || specificResource.equalsIgnoreCase("ALL")) {
-                    filteredResources.putAll(room.getResources());
-                } else if (room.getResources().containsKey(specificResource)) {
-                    filteredResources.put(specificResource, room.getResources().get(specificResource));
-                }
+        // Las filas llegan ordenadas por aula; se agrupan conservando ese orden
+        Map<String, ResourceReportDTO> byClassroom = new LinkedHashMap<>();
+        for (ClassroomResourceRow row : rows) {
+            ResourceReportDTO dto = byClassroom.computeIfAbsent(row.getClassroomId(), id -> ResourceReportDTO.builder()
+                    .classroomName(row.getClassroomName())
+                    .buildingName(row.getBuildingName() != null ? row.getBuildingName() : "Sin Edificio")
+                    .resources(new HashMap<>())
+                    .build());
+            if (row.getResourceKey() != null) {
+                dto.getResources().put(row.getResourceKey(), row.getQuantity());
             }
+        }
+        return new ArrayList<>(byClassroom.values());
+    }
 
-            if (specificResource != null && !specificResource.equalsIgnoreCase("ALL") && filteredResources.isEmpty()) {
-                continue;
-            }
+    // Predicado jsonpath exists($."clave") con la clave escapada como literal de cadena
+    private static String jsonPathExists(String key) {
+        String escaped = key.replace("\\", "\\\\").replace("\"", "\\\"");
+        return "exists($.\"" + escaped + "\")";
+    }
 
-            report.add(ResourceReportDTO.builder()
-                    .classroomName(room.getName())
-                    .buildingName(room.getBuilding() != null ? room.getBuilding().getName() : "Sin Edificio")
-                    .resources(filteredResources)
-                    .build());
+    public ResourceTotalsDTO getResourceTotals() {
+        return reportCache.get("resource-totals", List.of(), EnumSet.of(DataDomain.CLASSROOMS), null, null,
+                this::computeResourceTotals);
+    }
+
+    private ResourceTotalsDTO computeResourceTotals() {
+        Map<String, Long> totalsByResource = new TreeMap<>();
+        Map<String, Long> classroomsByResource = new TreeMap<>();
+        Map<String, Map<String, Long>> totalsByBuilding = new TreeMap<>();
+
+        for (BuildingResourceTotalRow row : classroomRepository.sumResourcesByBuilding()) {
+            long quantity = row.getTotalQuantity() != null ? row.getTotalQuantity() : 0;
+            long classrooms = row.getClassroomCount() != null ? row.getClassroomCount() : 0;
+            String building = row.getBuildingName() != null ? row.getBuildingName() : "Sin Edificio";
+
+            totalsByResource.merge(row.getResourceKey(), quantity, Long::sum);
+            classroomsByResource.merge(row.getResourceKey(), classrooms, Long::sum);
+            totalsByBuilding.computeIfAbsent(building, b -> new TreeMap<>())
+                    .merge(row.getResourceKey(), quantity, Long::sum);
+        }
+
+        return ResourceTotalsDTO.builder()
+                .totalsByResource(totalsByResource)
+                .classroomsByResource(classroomsByResource)
+                .totalsByBuilding(totalsByBuilding)
+                .build();
+    }
+
+    // Rango de fechas inclusivo de un reporte; por defecto los últimos DEFAULT_REPORT_WINDOW_DAYS días
+    private record ReportRange(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime start() { return startDate.atStartOfDay(); }
+        LocalDateTime end() { return endDate.plusDays(1).atStartOfDay(); }
+    }
+
+    private ReportRange resolveRange(LocalDate from, LocalDate to) {
+        LocalDate endDate = (to != null) ? to : LocalDate.now();
+        LocalDate startDate = (from != null) ? from : endDate.minusDays(DEFAULT_REPORT_WINDOW_DAYS - 1);
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("La fecha inicial del reporte no puede ser posterior a la final.");
         }
-        return report;
+        return new ReportRange(startDate, endDate);
     }
 
-    public List<SpaceUsageDTO> getSpaceUsageStatistics() {
-        List<Classroom> classrooms = classroomRepository.findAll();
-        long totalReservationsGlobal = reservationRepository.count();
+    public List<SpaceUsageDTO> getSpaceUsageStatistics(LocalDate from, LocalDate to) {
+        ReportRange range = resolveRange(from, to);
+        return reportCache.get("space-usage", List.of(range.startDate(), range.endDate()),
+                EnumSet.of(DataDomain.RESERVATIONS, DataDomain.CLASSROOMS), range.startDate(), range.endDate(),
+                () -> computeSpaceUsageStatistics(range));
+    }
+
+    private List<SpaceUsageDTO> computeSpaceUsageStatistics(ReportRange range) {
+        LocalDate startDate = range.startDate();
+        LocalDate endDate = range.endDate();
+
+        Map<String, SpaceUsageDTO> byClassroom = new LinkedHashMap<>();
+        long totalReservationsGlobal = 0;
+
+        for (ClassroomStatusUsageRow row : dailyUsageRepository.aggregateByClassroomAndStatus(startDate, endDate)) {
+            SpaceUsageDTO dto = byClassroom.computeIfAbsent(row.getClassroomId(), id -> SpaceUsageDTO.builder()
+                    .classroomId(id)
+                    .classroomName(row.getClassroomName())
+                    .buildingName(row.getBuildingName() != null ? row.getBuildingName() : "Sin Edificio")
+                    .reservationsByStatus(new LinkedHashMap<>())
+                    .build());
+            if (row.getStatus() == null) continue;
+
+            long count = row.getReservationCount() != null ? row.getReservationCount() : 0;
+            dto.getReservationsByStatus().put(row.getStatus(), count);
+            dto.setTotalReservations(dto.getTotalReservations() + count);
+            if (ReservationStatus.CONFIRMADA.name().equals(row.getStatus()) && row.getBookedMinutes() != null) {
+                dto.setBookedMinutes(row.getBookedMinutes());
+            }
+            totalReservationsGlobal += count;
+        }
 
-        return classrooms.stream().map(room -> {
-                    long roomReservations = reservationRepository.countByClassroomId(room.getId());
-                    double percentage = totalReservationsGlobal > 0 ? ((double) roomReservations / totalReservationsGlobal) * 100 : 0.0;
+        long openMinutes = countOpenMinutes(startDate, endDate);
+        for (SpaceUsageDTO dto : byClassroom.values()) {
+            double share = totalReservationsGlobal > 0 ? ((double) dto.getTotalReservations() / totalReservationsGlobal) * 100 : 0.0;
+            double utilization = openMinutes > 0 ? ((double) dto.getBookedMinutes() / openMinutes) * 100 : 0.0;
+            dto.setUsagePercentage(Math.round(share * 100.0) / 100.0);
+            dto.setUtilizationPercentage(Math.round(utilization * 100.0) / 100.0);
+        }
 
-                    return SpaceUsageDTO.builder()
-                            .classroomName(room.getName())
-                            .totalReservations(roomReservations)
-                            .usagePercentage(Math.round(percentage * 100.0) / 100.0)
-                            .build();
-                })
+        return byClassroom.values().stream()
                 .sorted(Comparator.comparingLong(SpaceUsageDTO::getTotalReservations).reversed())
                 .collect(Collectors.toList());
     }
 
-    public CancellationReportDTO getCancellationReport() {
-        List<Reservation> cancelledAndRejected = reservationRepository.findAll().stream()
-                .filter(r -> r.getStatus() == ReservationStatus.CANCELADA || r.getStatus() == ReservationStatus.RECHAZADA)
-                .collect(Collectors.toList());
+    // Minutos en que las aulas están abiertas dentro del rango, según el horario configurado
+    private long countOpenMinutes(LocalDate startDate, LocalDate endDate) {
+        long minutesPerDay = Math.max(0, (closingHour - openingHour) * 60L);
+        long openDayCount = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (openDays.contains(date.getDayOfWeek())) openDayCount++;
+        }
+        return openDayCount * minutesPerDay;
+    }
 
-        long cancelledCount = cancelledAndRejected.stream().filter(r -> r.getStatus() == ReservationStatus.CANCELADA).count();
-        long rejectedCount = cancelledAndRejected.stream().filter(r -> r.getStatus() == ReservationStatus.RECHAZADA).count();
-
-        Map<String, Long> reasons = cancelledAndRejected.stream()
-                .map(r -> r.getPurpose() != null && !r.getPurpose().trim().isEmpty() ? r.getPurpose() : "No especificado")
-                .collect(Collectors.groupingBy(reasonsText -> reasonsText, Collectors.counting()));
-
-        // --- LÓGICA DE DETALLES: A quién, dónde, cuándo y por qué ---
-        List<RejectedReservationDTO> details = cancelledAndRejected.stream()
-                .map(r -> RejectedReservationDTO.builder()
-                        .userName(r.getUser() != null ? r.getUser().getName() : "Usuario Desconocido")
-                        .classroomName(r.getClassroom() != null ? r.getClassroom().getName() : "Aula Desconocida")
-                        .status(r.getStatus().name())
-                        .reason(r.getPurpose() != null && !r.getPurpose().trim().isEmpty() ? r.getPurpose() : "Sin motivo registrado")
-                        .date(r.getStartTime())
-                        .build()
-                )
-                .sorted(Comparator.comparing(RejectedReservationDTO::getDate).reversed()) // Los más recientes primero
-                .collect(Collectors.toList());
+    // Minutos reservados por día de la semana x hora, en una sola pasada sobre los tramos confirmados.
+    // Solo el cálculo abre transacción (el stream la necesita); un acierto de caché no toca la base.
+    public UtilizationHeatmapDTO getUtilizationHeatmap(LocalDate from, LocalDate to, String buildingId, ClassroomType type) {
+        ReportRange range = resolveRange(from, to);
+        String building = (buildingId == null || buildingId.isBlank()) ? null : buildingId;
+        return reportCache.get("heatmap", Arrays.asList(range.startDate(), range.endDate(), building, type),
+                EnumSet.of(DataDomain.RESERVATIONS, DataDomain.CLASSROOMS), range.startDate(), range.endDate(),
+                () -> {
+                    TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+                    readOnly.setReadOnly(true);
+                    return readOnly.execute(status -> computeUtilizationHeatmap(range, building, type));
+                });
+    }
+
+    private UtilizationHeatmapDTO computeUtilizationHeatmap(ReportRange range, String buildingId, ClassroomType type) {
+        LocalDateTime rangeStart = range.start();
+        LocalDateTime rangeEnd = range.end();
+        // Índice plano (día - 1) * 24 + hora; se acumulan segundos y se pasan a minutos al final
+        long[] bookedSeconds = new long[7 * 24];
+
+        try (Stream<ClassroomUsageSpan> spans = reservationRepository.streamConfirmedSpans(rangeStart, rangeEnd, buildingId, type)) {
+            spans.forEach(span -> {
+                LocalDateTime cursor = span.getFrom().isBefore(rangeStart) ? rangeStart : span.getFrom();
+                LocalDateTime end = span.getTo().isAfter(rangeEnd) ? rangeEnd : span.getTo();
+                while (cursor.isBefore(end)) {
+                    LocalDateTime nextHour = cursor.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+                    LocalDateTime segmentEnd = nextHour.isBefore(end) ? nextHour : end;
+                    int bucket = (cursor.getDayOfWeek().getValue() - 1) * 24 + cursor.getHour();
+                    bookedSeconds[bucket] += ChronoUnit.SECONDS.between(cursor, segmentEnd);
+                    cursor = segmentEnd;
+                }
+            });
+        }
+
+        long classroomCount = classroomRepository.countByBuildingAndType(buildingId, type);
+        int[] dayOccurrences = new int[7];
+        for (LocalDate date = range.startDate(); !date.isAfter(range.endDate()); date = date.plusDays(1)) {
+            dayOccurrences[date.getDayOfWeek().getValue() - 1]++;
+        }
+
+        long[][] bookedMinutes = new long[7][24];
+        double[][] density = new double[7][24];
+        for (int day = 0; day < 7; day++) {
+            long availableMinutes = classroomCount * dayOccurrences[day] * 60L;
+            for (int hour = 0; hour < 24; hour++) {
+                long minutes = bookedSeconds[day * 24 + hour] / 60;
+                bookedMinutes[day][hour] = minutes;
+                density[day][hour] = availableMinutes > 0 ? Math.round(((double) minutes / availableMinutes) * 10000.0) / 10000.0 : 0.0;
+            }
+        }
+
+        return UtilizationHeatmapDTO.builder()
+                .from(range.startDate())
+                .to(range.endDate())
+                .buildingId(buildingId)
+                .classroomType(type)
+                .classroomCount(classroomCount)
+                .days(Arrays.stream(DayOfWeek.values()).map(DayOfWeek::name).collect(Collectors.toList()))
+                .bookedMinutes(bookedMinutes)
+                .density(density)
+                .build();
+    }
+
+    public CancellationReportDTO getCancellationReport(LocalDate from, LocalDate to) {
+        ReportRange range = resolveRange(from, to);
+        return reportCache.get("cancellations", List.of(range.startDate(), range.endDate()),
+                CANCELLATION_DEPENDENCIES, range.startDate(), range.endDate(),
+                () -> computeCancellationReport(range));
+    }
+
+    private CancellationReportDTO computeCancellationReport(ReportRange range) {
+
+        long cancelledCount = 0;
+        long rejectedCount = 0;
+        Map<String, Long> reasons = new HashMap<>();
+        for (CancellationReasonRow row : reservationRepository.countByStatusAndReason(CANCELLATION_STATUSES, range.start(), range.end())) {
+            long total = row.getTotal() != null ? row.getTotal() : 0;
+            if (row.getStatus() == ReservationStatus.CANCELADA) cancelledCount += total;
+            else if (row.getStatus() == ReservationStatus.RECHAZADA) rejectedCount += total;
+            String reason = row.getReason() != null && !row.getReason().trim().isEmpty() ? row.getReason() : "No especificado";
+            reasons.merge(reason, total, Long::sum);
+        }
+
+        CancellationDetailPageDTO firstPage = computeCancellationDetails(range, null, DEFAULT_CANCELLATION_PAGE_SIZE);
 
         return CancellationReportDTO.builder()
+                .from(range.start())
+                .to(range.end())
                 .totalCancellations(cancelledCount)
                 .totalRejected(rejectedCount)
                 .reasonsCount(reasons)
-                .details(details)
+                .details(firstPage.getItems())
+                .detailsNextCursor(firstPage.getNextCursor())
                 .build();
     }
 
-    public UserReportDTO getDetailedUserReport() {
-        List<User> users = userRepository.findAll();
+    // --- LÓGICA DE DETALLES: A quién, dónde, cuándo y por qué (los más recientes primero) ---
+    public CancellationDetailPageDTO getCancellationDetails(LocalDate from, LocalDate to, String cursor, int size) {
+        ReportRange range = resolveRange(from, to);
+        int pageSize = Math.max(1, Math.min(size, MAX_CANCELLATION_PAGE_SIZE));
+        return reportCache.get("cancellation-details", Arrays.asList(range.startDate(), range.endDate(), cursor, pageSize),
+                CANCELLATION_DEPENDENCIES, range.startDate(), range.endDate(),
+                () -> computeCancellationDetails(range, cursor, pageSize));
+    }
 
-        Map<String, Long> byRole = users.stream()
-                .collect(Collectors.groupingBy(u -> u.getRole().name(), Collectors.counting()));
+    private CancellationDetailPageDTO computeCancellationDetails(ReportRange range, String cursor, int pageSize) {
+        CursorUtils.Position position = CursorUtils.decode(cursor);
 
-        Map<String, Long> byInstitution = users.stream()
-                .filter(u -> u.getInstitution() != null && !u.getInstitution().trim().isEmpty())
-                .collect(Collectors.groupingBy(User::getInstitution, Collectors.counting()));
+        List<RejectedReservationDTO> rows = reservationRepository.findCancellationDetailPage(
+                CANCELLATION_STATUSES, range.start(), range.end(),
+                position != null ? position.startTime() : null, position != null ? position.id() : null,
+                Limit.of(pageSize + 1));
 
-        Map<String, Long> byCareer = users.stream()
-                .filter(u -> u.getCareer() != null && !u.getCareer().trim().isEmpty())
-                .collect(Collectors.groupingBy(User::getCareer, Collectors.counting()));
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            RejectedReservationDTO last = rows.get(pageSize - 1);
+            nextCursor = CursorUtils.encode(last.getDate(), last.getReservationId());
+        }
+        rows.forEach(r -> {
+            if (r.getReason() == null || r.getReason().trim().isEmpty()) r.setReason("Sin motivo registrado");
+        });
+
+        return CancellationDetailPageDTO.builder()
+                .from(range.start())
+                .to(range.end())
+                .items(rows)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    public UserReportDTO getDetailedUserReport() {
+        return reportCache.get("users", List.of(), EnumSet.of(DataDomain.USERS), null, null,
+                this::computeDetailedUserReport);
+    }
+
+    private UserReportDTO computeDetailedUserReport() {
+        long totalUsers = 0;
+        Map<String, Long> byRole = new HashMap<>();
+        Map<String, Long> byInstitution = new HashMap<>();
+        Map<String, Long> byCareer = new HashMap<>();
+
+        for (UserCountRow row : userRepository.countByRoleInstitutionAndCareer()) {
+            long total = row.getTotal() != null ? row.getTotal() : 0;
+            if ("TOTAL".equals(row.getDimension())) {
+                totalUsers = total;
+                continue;
+            }
+            // Institución o carrera vacías no se reportan, igual que antes
+            if (row.getLabel() == null || row.getLabel().trim().isEmpty()) continue;
+            if ("ROLE".equals(row.getDimension())) byRole.put(row.getLabel(), total);
+            else if ("INSTITUTION".equals(row.getDimension())) byInstitution.put(row.getLabel(), total);
+            else if ("CAREER".equals(row.getDimension())) byCareer.put(row.getLabel(), total);
+        }
 
         return UserReportDTO.builder()
-                .totalUsers(users.size())
+                .totalUsers(totalUsers)
                 .usersByRole(byRole)
                 .usersByInstitution(byInstitution)
                 .usersByCareer(byCareer)
                 .build();
     }
-}
\ No newline at end of file
+
+    // Los cuatro reportes del panel en paralelo, cada uno en su hilo virtual (y su propia conexión),
+    // con un plazo común: el panel tarda lo que el reporte más lento
+    public DashboardReportDTO getDashboard(LocalDate from, LocalDate to) {
+        // future.cancel(true) no detiene una consulta JDBC en curso: cada sección corre en una transacción de
+        // solo lectura con el plazo del panel como timeout, que Hibernate aplica como timeout de cada consulta
+        TransactionTemplate section = new TransactionTemplate(transactionManager);
+        section.setReadOnly(true);
+        section.setTimeout((int) Math.max(1, (dashboardTimeout.toMillis() + 999) / 1000));
+
+        Future<List<ResourceReportDTO>> resources = reportExecutor.submit(() -> section.execute(status -> getResourceReport("ALL")));
+        Future<List<SpaceUsageDTO>> spaceUsage = reportExecutor.submit(() -> section.execute(status -> getSpaceUsageStatistics(from, to)));
+        Future<CancellationReportDTO> cancellations = reportExecutor.submit(() -> section.execute(status -> getCancellationReport(from, to)));
+        Future<UserReportDTO> users = reportExecutor.submit(() -> section.execute(status -> getDetailedUserReport()));
+
+        long deadline = System.nanoTime() + dashboardTimeout.toNanos();
+        Map<String, String> errors = new LinkedHashMap<>();
+        return DashboardReportDTO.builder()
+                .resources(awaitSection("resources", resources, deadline, errors))
+                .spaceUsage(awaitSection("spaceUsage", spaceUsage, deadline, errors))
+                .cancellations(awaitSection("cancellations", cancellations, deadline, errors))
+                .users(awaitSection("users", users, deadline, errors))
+                .errors(errors)
+                .build();
+    }
+
+    private <T> T awaitSection(String name, Future<T> future, long deadline, Map<String, String> errors) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            errors.put(name, "Tiempo de espera agotado.");
+        } catch (ExecutionException e) {
+            // El detalle queda en el log; al cliente no se le exponen mensajes internos (SQL, nombres de tablas)
+            System.err.println("Panel de reportes: falló la sección '" + name + "': " + (e.getCause() != null ? e.getCause() : e));
+            errors.put(name, "No se pudo generar esta sección.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            errors.put(name, "Interrumpido.");
+        }
+        return null;
+    }
+}
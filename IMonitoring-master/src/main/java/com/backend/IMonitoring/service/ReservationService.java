@@ -1,24 +1,35 @@
 package com.backend.IMonitoring.service;
 
 import com.backend.IMonitoring.dto.ReservationResponseDTO;
-import com.backend.IMonitoring.dto.ClassroomSummaryDTO;
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
 import com.backend.IMonitoring.dto.SemesterReservationRequestDTO;
-import com.backend.IMonitoring.dto.UserSummaryDTO;
 import com.backend.IMonitoring.dto.UsageLogDTO;
+import com.backend.IMonitoring.dto.UsageLogPageDTO;
 import com.backend.IMonitoring.model.*;
 import com.backend.IMonitoring.repository.ClassroomRepository;
 import com.backend.IMonitoring.repository.ReservationRepository;
+import com.backend.IMonitoring.repository.ReservationSeriesRepository;
 import com.backend.IMonitoring.security.UserDetailsImpl;
 import com.backend.IMonitoring.exceptions.ResourceNotFoundException;
 import com.backend.IMonitoring.exceptions.UnauthorizedAccessException;
 import com.backend.IMonitoring.exceptions.InvalidReservationException;
 import com.backend.IMonitoring.utils.CareerUtils;
+import com.backend.IMonitoring.utils.CursorUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -28,55 +39,34 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ReservationService {
+    // Cada cuántas filas se vacía el contexto de persistencia al volcar en streaming
+    private static final int STREAM_CLEAR_INTERVAL = 500;
+    private static final int DEFAULT_USAGE_LOG_WINDOW_DAYS = 7;
+    private static final int MAX_USAGE_LOG_PAGE_SIZE = 200;
+
     private final ReservationRepository reservationRepository;
+    private final ReservationSeriesRepository reservationSeriesRepository;
+    private final DailyUsageRollupService dailyUsageRollupService;
     private final ClassroomRepository classroomRepository;
     private final UserService userService;
     private final EmailService emailService;
 
     private final AuditLogService auditLogService;
+    private final ObjectMapper objectMapper;
 
-    public ReservationResponseDTO convertToDTO(Reservation reservation) {
-        if (reservation == null) return null;
-
-        User userEntity = reservation.getUser();
-        UserSummaryDTO userSummary = (userEntity != null) ?
-                new UserSummaryDTO(userEntity.getId(), userEntity.getName(), userEntity.getEmail(), userEntity.getRole()) : null;
-
-        Classroom classroomEntity = reservation.getClassroom();
-        ClassroomSummaryDTO classroomSummary = null;
-        if (classroomEntity != null) {
-            String buildingName = (classroomEntity.getBuilding() != null) ? classroomEntity.getBuilding().getName() : null;
-            classroomSummary = new ClassroomSummaryDTO(
-                    classroomEntity.getId(),
-                    classroomEntity.getName(),
-                    buildingName,
-                    classroomEntity.getIsUnderMaintenance()
-            );
-        }
-
-        return ReservationResponseDTO.builder()
-                .id(reservation.getId())
-                .groupId(reservation.getGroupId())
-                .recurrenceDetails(reservation.getRecurrenceDetails())
-                .classroom(classroomSummary)
-                .user(userSummary)
-                .startTime(reservation.getStartTime())
-                .endTime(reservation.getEndTime())
-                .status(reservation.getStatus())
-                .purpose(reservation.getPurpose())
-                .createdAt(reservation.getCreatedAt())
-                .updatedAt(reservation.getUpdatedAt())
-                .build();
-    }
+    @PersistenceContext
+    private EntityManager entityManager;
 
     private List<ReservationResponseDTO> convertToDTOList(List<Reservation> reservations) {
         if (reservations == null) return List.of();
-        return reservations.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return reservations.stream().map(ReservationResponseDTO::fromEntity).collect(Collectors.toList());
     }
 
     public Reservation getReservationById(String id) {
@@ -85,35 +75,62 @@ public class ReservationService {
     }
 
     public ReservationResponseDTO getReservationByIdDTO(String id) {
-        Reservation res = getReservationById(id);
-        ReservationResponseDTO dto = convertToDTO(res);
+        Reservation res = reservationRepository.findByIdWithDetails(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Reserva no encontrada con ID: " + id));
+        ReservationResponseDTO dto = ReservationResponseDTO.fromEntity(res);
 
         if (res.getGroupId() != null) {
-            List<Reservation> groupReservations = reservationRepository.findByGroupId(res.getGroupId());
-            if (!groupReservations.isEmpty()) {
-                LocalDateTime minStart = groupReservations.stream()
-                        .map(Reservation::getStartTime)
-                        .min(LocalDateTime::compareTo)
-                        .orElse(res.getStartTime());
-
-                LocalDateTime maxEnd = groupReservations.stream()
-                        .map(Reservation::getEndTime)
-                        .max(LocalDateTime::compareTo)
-                        .orElse(res.getEndTime());
-
-                List<String> days = groupReservations.stream()
-                        .map(r -> r.getStartTime().getDayOfWeek().name())
-                        .distinct()
-                        .collect(Collectors.toList());
-
-                dto.setSemesterStartDate(minStart.toLocalDate());
-                dto.setSemesterEndDate(maxEnd.toLocalDate());
-                dto.setDaysOfWeek(days);
+            ReservationSeries series = reservationSeriesRepository.findById(res.getGroupId())
+                    .orElseGet(() -> refreshSeriesMetadata(res.getGroupId()));
+            if (series != null) {
+                dto.setSemesterStartDate(series.getStartDate());
+                dto.setSemesterEndDate(series.getEndDate());
+                dto.setDaysOfWeek(series.getDaysOfWeek());
             }
         }
         return dto;
     }
 
+    // Recalcula los metadatos de la serie desde sus ocurrencias. Solo se usa en
+    // las rutas de escritura (o para series antiguas sin fila en reservation_series).
+    private ReservationSeries refreshSeriesMetadata(String groupId) {
+        return syncSeriesMetadata(groupId, reservationRepository.findByGroupId(groupId));
+    }
+
+    private ReservationSeries syncSeriesMetadata(String groupId, List<Reservation> groupReservations) {
+        if (groupReservations.isEmpty()) {
+            if (reservationSeriesRepository.existsById(groupId)) {
+                reservationSeriesRepository.deleteById(groupId);
+            }
+            return null;
+        }
+
+        LocalDateTime minStart = groupReservations.stream()
+                .map(Reservation::getStartTime)
+                .min(LocalDateTime::compareTo)
+                .get();
+
+        LocalDateTime maxEnd = groupReservations.stream()
+                .map(Reservation::getEndTime)
+                .max(LocalDateTime::compareTo)
+                .get();
+
+        List<String> days = groupReservations.stream()
+                .map(r -> r.getStartTime().getDayOfWeek())
+                .distinct()
+                .sorted()
+                .map(DayOfWeek::name)
+                .collect(Collectors.toList());
+
+        ReservationSeries series = reservationSeriesRepository.findById(groupId)
+                .orElseGet(() -> ReservationSeries.builder().groupId(groupId).build());
+        series.setStartDate(minStart.toLocalDate());
+        series.setEndDate(maxEnd.toLocalDate());
+        series.setDaysOfWeek(days);
+        series.setOccurrenceCount(groupReservations.size());
+        return reservationSeriesRepository.save(series);
+    }
+
     public List<ReservationResponseDTO> getAdminFilteredReservations(
             String classroomId, String userId, ReservationStatus status,
             LocalDateTime startDate, LocalDateTime endDate,
@@ -232,6 +249,8 @@ public class ReservationService {
         }
 
         List<Reservation> saved = reservationRepository.saveAll(reservationsToSave);
+        syncSeriesMetadata(seriesGroupId, saved);
+        dailyUsageRollupService.refreshReservations(saved);
 
         auditLogService.logAction(
                 "RESERVAS_SEMESTRE_CREADAS",
@@ -295,6 +314,7 @@ public class ReservationService {
         reservationInput.setRecurrenceDetails(null);
 
         Reservation savedReservation = reservationRepository.save(reservationInput);
+        dailyUsageRollupService.refresh(dailyUsageRollupService.spanOf(savedReservation));
 
         auditLogService.logAction(
                 "RESERVA_CREADA",
@@ -325,6 +345,7 @@ public class ReservationService {
         if (editSeries) {
             String groupId = originalReservation.getGroupId();
             List<Reservation> groupReservations = reservationRepository.findByGroupId(groupId);
+            List<ClassroomUsageSpan> touchedSpans = new ArrayList<>(dailyUsageRollupService.spansOf(groupReservations));
             LocalDateTime now = LocalDateTime.now();
 
             LocalDateTime semesterEndDateTime = groupReservations.stream()
@@ -359,6 +380,9 @@ public class ReservationService {
                 results.add(res);
             }
             List<Reservation> savedList = reservationRepository.saveAll(results);
+            refreshSeriesMetadata(groupId);
+            touchedSpans.addAll(dailyUsageRollupService.spansOf(reservationRepository.findByGroupId(groupId)));
+            dailyUsageRollupService.refreshSpans(touchedSpans);
 
             auditLogService.logAction(
                     "RESERVAS_ACTUALIZADAS_EN_SERIE",
@@ -369,12 +393,18 @@ public class ReservationService {
             return convertToDTOList(savedList);
 
         } else {
+            String detachedGroupId = originalReservation.getGroupId();
+            ClassroomUsageSpan previousSpan = dailyUsageRollupService.spanOf(originalReservation);
             if (isSeries) {
                 originalReservation.setGroupId(null);
                 originalReservation.setRecurrenceDetails(null);
             }
             applyChangesToReservation(originalReservation, updatedData, false);
-            Reservation saved = reservationRepository.save(originalReservation);
+            Reservation saved = reservationRepository.saveAndFlush(originalReservation);
+            if (isSeries) {
+                refreshSeriesMetadata(detachedGroupId);
+            }
+            dailyUsageRollupService.refreshSpans(List.of(previousSpan, dailyUsageRollupService.spanOf(saved)));
 
             // --- LOG: EDICIÓN INDIVIDUAL ---
             auditLogService.logAction(
@@ -383,7 +413,7 @@ public class ReservationService {
                     "Actualizó los datos de la reserva individual (ID: " + id + ")"
             );
 
-            return List.of(convertToDTO(saved));
+            return List.of(ReservationResponseDTO.fromEntity(saved));
         }
     }
 
@@ -577,6 +607,7 @@ public class ReservationService {
         }
         reservation.setStatus(newStatus);
         Reservation savedReservation = reservationRepository.save(reservation);
+        dailyUsageRollupService.refresh(dailyUsageRollupService.spanOf(savedReservation));
 
         sendReservationEmail(savedReservation, reason, newStatus);// --- LOG: CAMBIO DE ESTADO ---
         auditLogService.logAction(
@@ -611,6 +642,7 @@ public class ReservationService {
         if (reservation.getStatus() == ReservationStatus.PENDIENTE || reservation.getStatus() == ReservationStatus.CONFIRMADA) {
             reservation.setStatus(ReservationStatus.CANCELADA);
             Reservation savedReservation = reservationRepository.save(reservation);
+            dailyUsageRollupService.refresh(dailyUsageRollupService.spanOf(savedReservation));
 
             sendReservationEmail(savedReservation, reason, ReservationStatus.CANCELADA);
 
@@ -671,6 +703,11 @@ public class ReservationService {
 
         if (isAdmin || (isCoordinator && allowedStatus) || (isOwner && allowedStatus)) {
             reservationRepository.deleteById(id);
+            if (reservation.getGroupId() != null) {
+                reservationRepository.flush();
+                refreshSeriesMetadata(reservation.getGroupId());
+            }
+            dailyUsageRollupService.refresh(dailyUsageRollupService.spanOf(reservation));
 
             auditLogService.logAction(
                     "RESERVA_ELIMINADA",
@@ -682,9 +719,13 @@ public class ReservationService {
         }
     }
 
-    public List<ReservationResponseDTO> getReservationsByStatusDTO(ReservationStatus status) {
-        return convertToDTOList(reservationRepository.findByStatus(status, Sort.by(Sort.Direction.DESC, "startTime")));
+    @Transactional(readOnly = true)
+    public void writeReservationsAsJson(ReservationStatus status, OutputStream out) throws IOException {
+        try (Stream<Reservation> rows = reservationRepository.streamByStatusWithDetails(status)) {
+            writeJsonArray(rows, ReservationResponseDTO::fromEntity, out);
+        }
     }
+
     public List<ReservationResponseDTO> getUpcomingReservationsDTO(int limit) {
         return convertToDTOList(reservationRepository.findByStatusAndStartTimeAfter(ReservationStatus.CONFIRMADA, LocalDateTime.now(ZoneOffset.UTC), Sort.by(Sort.Direction.ASC, "startTime"))
                 .stream().limit(limit).collect(Collectors.toList()));
@@ -699,16 +740,61 @@ public class ReservationService {
     public List<ReservationResponseDTO> getReservationsByUserIdDTO(String userId) {
         return convertToDTOList(reservationRepository.findByUserId(userId, Sort.by(Sort.Direction.DESC, "startTime")));
     }
-    public List<UsageLogDTO> getUsageLogs() {
-        List<Reservation> pastReservations = reservationRepository.findPastConfirmedReservationsAsLogs(LocalDateTime.now(ZoneOffset.UTC));
-        return pastReservations.stream().map(r -> UsageLogDTO.builder()
-                .reservationId(r.getId())
-                .classroomName(r.getClassroom() != null ? r.getClassroom().getName() : "Desconocida")
-                .userName(r.getUser() != null ? r.getUser().getName() : "Desconocido")
-                .role(r.getUser() != null && r.getUser().getRole() != null ? r.getUser().getRole().name() : "N/A")
-                .startTime(r.getStartTime())
-                .endTime(r.getEndTime())
-                .purpose(r.getPurpose())
-                .build()).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public UsageLogPageDTO getUsageLogs(LocalDateTime from, LocalDateTime to, String classroomId, String buildingId,
+                                        Rol role, String userId, String cursor, int size) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime windowEnd = (to != null) ? to : now;
+        LocalDateTime windowStart = (from != null) ? from : windowEnd.minusDays(DEFAULT_USAGE_LOG_WINDOW_DAYS);
+        if (!windowStart.isBefore(windowEnd)) {
+            throw new IllegalArgumentException("La fecha inicial de la ventana debe ser anterior a la final.");
+        }
+        int pageSize = Math.min(Math.max(size, 1), MAX_USAGE_LOG_PAGE_SIZE);
+
+        CursorUtils.Position position = CursorUtils.decode(cursor);
+
+        // Se pide una fila extra para saber si existe una página siguiente
+        List<UsageLogDTO> rows = reservationRepository.findUsageLogPage(
+                now, windowStart, windowEnd, blankToNull(classroomId), blankToNull(buildingId), role, blankToNull(userId),
+                position != null ? position.startTime() : null, position != null ? position.id() : null,
+                Limit.of(pageSize + 1));
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            UsageLogDTO last = rows.get(pageSize - 1);
+            nextCursor = CursorUtils.encode(last.getStartTime(), last.getReservationId());
+        }
+
+        return UsageLogPageDTO.builder()
+                .from(windowStart)
+                .to(windowEnd)
+                .items(rows)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static String blankToNull(String value) {
+        return (value == null || value.isBlank()) ? null : value;
+    }
+
+    // Escribe un arreglo JSON elemento por elemento mientras se recorre el cursor,
+    // liberando las entidades ya escritas para que la memoria no crezca con la tabla.
+    private <T> void writeJsonArray(Stream<Reservation> rows, Function<Reservation, T> mapper, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            int written = 0;
+            Iterator<Reservation> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, mapper.apply(iterator.next()));
+                if (++written % STREAM_CLEAR_INTERVAL == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+            generator.writeEndArray();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,369 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.AnalyticsDimension;
+import com.backend.IMonitoring.dto.AnalyticsResultDTO;
+import com.backend.IMonitoring.dto.ReservationSnapshotRow;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
+import com.backend.IMonitoring.events.ReservationDataChangedEvent;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
+import com.backend.IMonitoring.model.ReservationStatus;
+import com.backend.IMonitoring.model.Rol;
+import com.backend.IMonitoring.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Instantánea columnar de todas las reservas (arreglos primitivos + diccionarios) para analítica ad-hoc.
+// Se reconstruye al consultarla si hubo cambios desde la última construcción (como mucho una vez por
+// app.analytics.snapshot-refresh) y las consultas la recorren en paralelo sin tocar la base de datos.
+@Service
+@RequiredArgsConstructor
+public class ReservationSnapshotService {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // Filas por tarea de fork-join antes de dejar de dividir
+    private static final int SCAN_CHUNK_SIZE = 64 * 1024;
+    private static final int ANY = -1;
+
+    private final ReservationRepository reservationRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.analytics.snapshot-refresh:PT5M}")
+    private Duration maxStaleness;
+
+    private volatile Snapshot snapshot;
+    // Sube con cada cambio en reservas, aulas o usuarios; la instantánea guarda la versión con la que se construyó
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    // --- Estructura columnar ---
+
+    private static final class Snapshot {
+        LocalDateTime takenAt;
+        long dataVersion;
+        int size;
+        int[] startMinute;   // minutos desde 1970-01-01T00:00 (hora local tal como se guarda)
+        int[] endMinute;
+        int[] classroom;     // códigos de diccionario; -1 = sin valor
+        int[] building;
+        int[] user;
+        int[] institution;
+        byte[] role;         // Rol.ordinal()
+        byte[] status;       // ReservationStatus.ordinal()
+        Dictionary classrooms;
+        Dictionary buildings;
+        Dictionary users;
+        Dictionary institutions;
+        int minDay;          // día epoch del primer inicio
+        int[] monthOfDay;    // (día - minDay) -> índice de mes desde minMonth
+        YearMonth minMonth;
+        int monthCount;
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<String> labels = new ArrayList<>();
+
+        int encode(String value, String label) {
+            if (value == null) return ANY;
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                labels.add(label != null ? label : v);
+                return values.size() - 1;
+            });
+        }
+
+        int lookup(String value) {
+            Integer code = codes.get(value);
+            return code != null ? code : Integer.MIN_VALUE;
+        }
+
+        int size() { return values.size(); }
+
+        String label(int code) { return labels.get(code); }
+    }
+
+    private record Filter(int fromMinute, int toMinute, int status, int building, int role, int institution) {}
+
+    // --- Construcción ---
+
+    public synchronized AnalyticsResultDTO refresh() {
+        // Se lee antes de construir: un cambio confirmado durante la lectura deja la instantánea marcada como vieja
+        long version = dataVersion.get();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Snapshot built = readOnly.execute(status -> {
+            try (Stream<ReservationSnapshotRow> rows = reservationRepository.streamSnapshotRows()) {
+                return build(rows);
+            }
+        });
+        built.dataVersion = version;
+        snapshot = built;
+        return AnalyticsResultDTO.builder()
+                .snapshotTakenAt(built.takenAt)
+                .rowsScanned(built.size)
+                .groups(List.of())
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationDataChanged(ReservationDataChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClassroomDataChanged(ClassroomDataChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    // Sin cambios no se reconstruye nunca; con cambios, en la primera consulta pasado el intervalo mínimo
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null || isStale(s)) {
+            synchronized (this) {
+                if (snapshot == null || isStale(snapshot)) refresh();
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    private boolean isStale(Snapshot s) {
+        return s.dataVersion != dataVersion.get()
+                && !s.takenAt.plus(maxStaleness).isAfter(LocalDateTime.now());
+    }
+
+    private static Snapshot build(Stream<ReservationSnapshotRow> rows) {
+        Snapshot s = new Snapshot();
+        s.takenAt = LocalDateTime.now();
+        s.classrooms = new Dictionary();
+        s.buildings = new Dictionary();
+        s.users = new Dictionary();
+        s.institutions = new Dictionary();
+        int capacity = 1024;
+        s.startMinute = new int[capacity];
+        s.endMinute = new int[capacity];
+        s.classroom = new int[capacity];
+        s.building = new int[capacity];
+        s.user = new int[capacity];
+        s.institution = new int[capacity];
+        s.role = new byte[capacity];
+        s.status = new byte[capacity];
+
+        Iterator<ReservationSnapshotRow> it = rows.iterator();
+        int n = 0;
+        while (it.hasNext()) {
+            ReservationSnapshotRow row = it.next();
+            if (n == s.startMinute.length) grow(s, n * 2);
+            s.startMinute[n] = toEpochMinute(row.getStartTime());
+            s.endMinute[n] = toEpochMinute(row.getEndTime());
+            s.classroom[n] = s.classrooms.encode(row.getClassroomId(), row.getClassroomName());
+            s.building[n] = s.buildings.encode(row.getBuildingId(), row.getBuildingName());
+            s.user[n] = s.users.encode(row.getUserId(), null);
+            s.institution[n] = s.institutions.encode(normalize(row.getInstitution()), null);
+            s.role[n] = (byte) row.getRole().ordinal();
+            s.status[n] = (byte) row.getStatus().ordinal();
+            n++;
+        }
+        grow(s, n);
+        s.size = n;
+        buildMonthIndex(s);
+        return s;
+    }
+
+    private static void grow(Snapshot s, int length) {
+        s.startMinute = Arrays.copyOf(s.startMinute, length);
+        s.endMinute = Arrays.copyOf(s.endMinute, length);
+        s.classroom = Arrays.copyOf(s.classroom, length);
+        s.building = Arrays.copyOf(s.building, length);
+        s.user = Arrays.copyOf(s.user, length);
+        s.institution = Arrays.copyOf(s.institution, length);
+        s.role = Arrays.copyOf(s.role, length);
+        s.status = Arrays.copyOf(s.status, length);
+    }
+
+    // Tabla día -> mes para agrupar por mes sin crear objetos de fecha por fila
+    private static void buildMonthIndex(Snapshot s) {
+        if (s.size == 0) {
+            s.monthOfDay = new int[0];
+            s.minMonth = YearMonth.now();
+            return;
+        }
+        int minStart = Integer.MAX_VALUE;
+        int maxStart = Integer.MIN_VALUE;
+        for (int i = 0; i < s.size; i++) {
+            minStart = Math.min(minStart, s.startMinute[i]);
+            maxStart = Math.max(maxStart, s.startMinute[i]);
+        }
+        s.minDay = Math.floorDiv(minStart, MINUTES_PER_DAY);
+        int maxDay = Math.floorDiv(maxStart, MINUTES_PER_DAY);
+        s.minMonth = YearMonth.from(LocalDate.ofEpochDay(s.minDay));
+        s.monthOfDay = new int[maxDay - s.minDay + 1];
+        for (int day = s.minDay; day <= maxDay; day++) {
+            YearMonth month = YearMonth.from(LocalDate.ofEpochDay(day));
+            s.monthOfDay[day - s.minDay] = (int) s.minMonth.until(month, ChronoUnit.MONTHS);
+        }
+        s.monthCount = s.monthOfDay[s.monthOfDay.length - 1] + 1;
+    }
+
+    private static int toEpochMinute(LocalDateTime dateTime) {
+        return (int) Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static String normalize(String text) {
+        return (text == null || text.trim().isEmpty()) ? null : text.trim();
+    }
+
+    // --- Consulta ---
+
+    public AnalyticsResultDTO query(AnalyticsDimension groupBy, LocalDate from, LocalDate to, ReservationStatus status,
+                                    String buildingId, Rol role, String institution) {
+        if (groupBy == null) {
+            throw new IllegalArgumentException("Debe indicar la dimensión de agrupación.");
+        }
+        long started = System.nanoTime();
+        Snapshot s = current();
+
+        Filter filter = new Filter(
+                from != null ? toEpochMinute(from.atStartOfDay()) : Integer.MIN_VALUE,
+                to != null ? toEpochMinute(to.plusDays(1).atStartOfDay()) : Integer.MAX_VALUE,
+                status != null ? status.ordinal() : ANY,
+                buildingId != null && !buildingId.isBlank() ? s.buildings.lookup(buildingId) : ANY,
+                role != null ? role.ordinal() : ANY,
+                normalize(institution) != null ? s.institutions.lookup(normalize(institution)) : ANY);
+
+        int groupCount = groupCount(s, groupBy);
+        // Un valor de filtro que no existe en el diccionario no puede coincidir con ninguna fila
+        boolean impossible = filter.building() == Integer.MIN_VALUE || filter.institution() == Integer.MIN_VALUE;
+        long[] totals = impossible || s.size == 0
+                ? new long[2 * groupCount + 1]
+                : ForkJoinPool.commonPool().invoke(new ScanTask(s, filter, groupBy, groupCount, 0, s.size));
+
+        List<AnalyticsResultDTO.Group> groups = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            if (totals[2 * g] > 0) {
+                groups.add(new AnalyticsResultDTO.Group(label(s, groupBy, g), totals[2 * g], totals[2 * g + 1]));
+            }
+        }
+        if (groupBy != AnalyticsDimension.MONTH && groupBy != AnalyticsDimension.WEEKDAY && groupBy != AnalyticsDimension.HOUR) {
+            groups.sort(Comparator.comparingLong(AnalyticsResultDTO.Group::getReservations).reversed());
+        }
+
+        return AnalyticsResultDTO.builder()
+                .groupBy(groupBy)
+                .snapshotTakenAt(s.takenAt)
+                .rowsScanned(s.size)
+                .rowsMatched(totals[2 * groupCount])
+                .elapsedMillis((System.nanoTime() - started) / 1_000_000)
+                .groups(groups)
+                .build();
+    }
+
+    // Recorre [from, to) y devuelve [reservas_g0, minutos_g0, reservas_g1, ..., coincidencias]
+    private static final class ScanTask extends RecursiveTask<long[]> {
+        private final Snapshot s;
+        private final Filter filter;
+        private final AnalyticsDimension groupBy;
+        private final int groupCount;
+        private final int from;
+        private final int to;
+
+        ScanTask(Snapshot s, Filter filter, AnalyticsDimension groupBy, int groupCount, int from, int to) {
+            this.s = s;
+            this.filter = filter;
+            this.groupBy = groupBy;
+            this.groupCount = groupCount;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SCAN_CHUNK_SIZE) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(s, filter, groupBy, groupCount, from, mid);
+            left.fork();
+            long[] right = new ScanTask(s, filter, groupBy, groupCount, mid, to).compute();
+            long[] result = left.join();
+            for (int i = 0; i < result.length; i++) result[i] += right[i];
+            return result;
+        }
+
+        private long[] scan() {
+            long[] totals = new long[2 * groupCount + 1];
+            for (int i = from; i < to; i++) {
+                int start = s.startMinute[i];
+                if (start < filter.fromMinute() || start >= filter.toMinute()) continue;
+                if (filter.status() != ANY && s.status[i] != filter.status()) continue;
+                if (filter.building() != ANY && s.building[i] != filter.building()) continue;
+                if (filter.role() != ANY && s.role[i] != filter.role()) continue;
+                if (filter.institution() != ANY && s.institution[i] != filter.institution()) continue;
+
+                int group = groupOf(s, groupBy, i);
+                totals[2 * group]++;
+                totals[2 * group + 1] += s.endMinute[i] - start;
+                totals[2 * groupCount]++;
+            }
+            return totals;
+        }
+    }
+
+    // Los valores nulos (sin edificio / sin institución) usan el último grupo
+    private static int groupCount(Snapshot s, AnalyticsDimension groupBy) {
+        return switch (groupBy) {
+            case ROLE -> Rol.values().length;
+            case INSTITUTION -> s.institutions.size() + 1;
+            case BUILDING -> s.buildings.size() + 1;
+            case CLASSROOM -> s.classrooms.size();
+            case STATUS -> ReservationStatus.values().length;
+            case MONTH -> s.monthCount;
+            case WEEKDAY -> 7;
+            case HOUR -> 24;
+        };
+    }
+
+    private static int groupOf(Snapshot s, AnalyticsDimension groupBy, int i) {
+        return switch (groupBy) {
+            case ROLE -> s.role[i];
+            case INSTITUTION -> s.institution[i] == ANY ? s.institutions.size() : s.institution[i];
+            case BUILDING -> s.building[i] == ANY ? s.buildings.size() : s.building[i];
+            case CLASSROOM -> s.classroom[i];
+            case STATUS -> s.status[i];
+            case MONTH -> s.monthOfDay[Math.floorDiv(s.startMinute[i], MINUTES_PER_DAY) - s.minDay];
+            // El día epoch 0 (1970-01-01) fue jueves: +3 deja el lunes en 0
+            case WEEKDAY -> Math.floorMod(Math.floorDiv(s.startMinute[i], MINUTES_PER_DAY) + 3, 7);
+            case HOUR -> Math.floorMod(s.startMinute[i], MINUTES_PER_DAY) / 60;
+        };
+    }
+
+    private static String label(Snapshot s, AnalyticsDimension groupBy, int group) {
+        return switch (groupBy) {
+            case ROLE -> Rol.values()[group].name();
+            case INSTITUTION -> group == s.institutions.size() ? "Sin institución" : s.institutions.label(group);
+            case BUILDING -> group == s.buildings.size() ? "Sin Edificio" : s.buildings.label(group);
+            case CLASSROOM -> s.classrooms.label(group);
+            case STATUS -> ReservationStatus.values()[group].name();
+            case MONTH -> s.minMonth.plusMonths(group).toString();
+            case WEEKDAY -> DayOfWeek.of(group + 1).name();
+            case HOUR -> String.format("%02d:00", group);
+        };
+    }
+}
@@ -0,0 +1,312 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ExportJobDTO;
+import com.backend.IMonitoring.dto.ExportJobStatus;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
+import com.backend.IMonitoring.events.ReservationDataChangedEvent;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
+import com.backend.IMonitoring.exceptions.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Exportaciones de horarios como trabajos en segundo plano. El archivo terminado queda en disco bajo una clave
+// (parámetros + versión de datos); cualquier cambio de reservas, aulas o usuarios sube la versión y deja de servirse.
+@Service
+@RequiredArgsConstructor
+public class ScheduleExportJobService {
+
+    private static final String FILE_SUFFIX = ".xlsx";
+    private static final String TEMP_PREFIX = "export-";
+
+    private final ScheduleExportService scheduleExportService;
+    private final ExecutorService exportExecutor;
+
+    @Value("${app.exports.cache-dir:${java.io.tmpdir}/imonitoring-exports}")
+    private Path cacheDir;
+
+    @Value("${app.exports.job-retention:PT1H}")
+    private Duration jobRetention;
+
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    // Trabajos en curso por clave de caché: una segunda solicitud idéntica se une al existente
+    private final Map<String, ExportJob> inFlight = new ConcurrentHashMap<>();
+
+    private static final class ExportJob {
+        final String id = UUID.randomUUID().toString();
+        final String institution;
+        final String format;
+        final ScheduleExportService.ExportWindow window;
+        final Path file;
+        final LocalDateTime submittedAt = LocalDateTime.now();
+        volatile ExportJobStatus status = ExportJobStatus.PENDIENTE;
+        volatile boolean cached;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        ExportJob(String institution, String format, ScheduleExportService.ExportWindow window, Path file) {
+            this.institution = institution;
+            this.format = format;
+            this.window = window;
+            this.file = file;
+        }
+    }
+
+    // La versión se reinicia con la aplicación, así que los archivos de una ejecución anterior no son confiables
+    @PostConstruct
+    void prepareCacheDir() throws IOException {
+        Files.createDirectories(cacheDir);
+        deleteCachedFiles(file -> true);
+    }
+
+    public synchronized ExportJobDTO submit(String institution, String format, LocalDate from, LocalDate to) {
+        String normalizedInstitution = (institution == null || institution.isBlank()) ? "AMBAS" : institution.trim();
+        String normalizedFormat = normalizeFormat(format);
+        ScheduleExportService.ExportWindow window = scheduleExportService.resolveWindow(normalizedFormat, from, to);
+
+        long version = dataVersion.get();
+        String key = cacheKey(normalizedInstitution, normalizedFormat, window);
+        Path file = cacheDir.resolve(version + "-" + key + FILE_SUFFIX);
+
+        String inFlightKey = key + "@" + version;
+        ExportJob running = inFlight.get(inFlightKey);
+        if (running != null) {
+            return toDTO(running);
+        }
+
+        ExportJob job = new ExportJob(normalizedInstitution, normalizedFormat, window, file);
+        jobs.put(job.id, job);
+
+        if (Files.exists(file)) {
+            touch(file);
+            job.cached = true;
+            job.status = ExportJobStatus.COMPLETADO;
+            job.finishedAt = LocalDateTime.now();
+            return toDTO(job);
+        }
+
+        inFlight.put(inFlightKey, job);
+        try {
+            exportExecutor.execute(() -> run(job, inFlightKey));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(inFlightKey);
+            jobs.remove(job.id);
+            throw new RejectedExecutionException("Hay demasiadas exportaciones en cola; intente de nuevo en unos minutos.", e);
+        }
+        return toDTO(job);
+    }
+
+    public ExportJobDTO getJob(String jobId) {
+        return toDTO(findJob(jobId));
+    }
+
+    // Archivo listo para descargar; el controlador lo envía con transferTo sin cargarlo en memoria
+    public Path getCompletedFile(String jobId) {
+        ExportJob job = findJob(jobId);
+        if (job.status == ExportJobStatus.FALLIDO) {
+            throw new IllegalArgumentException("La exportación falló: " + job.error);
+        }
+        if (job.status != ExportJobStatus.COMPLETADO) {
+            throw new IllegalArgumentException("La exportación todavía no está lista (estado: " + job.status + ").");
+        }
+        if (!Files.exists(job.file)) {
+            throw new ResourceNotFoundException("El archivo de la exportación ya no está disponible; solicítela de nuevo.");
+        }
+        return job.file;
+    }
+
+    public String downloadFileName(String jobId) {
+        ExportJob job = findJob(jobId);
+        return "Horario_" + job.institution + "_" + job.format + FILE_SUFFIX;
+    }
+
+    public static void transferFile(Path file, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+        out.flush();
+    }
+
+    private void run(ExportJob job, String inFlightKey) {
+        job.status = ExportJobStatus.EN_PROCESO;
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(cacheDir, TEMP_PREFIX, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                scheduleExportService.writeScheduleExcel(job.institution, job.format, job.window, out);
+            }
+            Files.move(tmp, job.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.finishedAt = LocalDateTime.now();
+            job.status = ExportJobStatus.COMPLETADO;
+        } catch (Exception e) {
+            job.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            job.finishedAt = LocalDateTime.now();
+            job.status = ExportJobStatus.FALLIDO;
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // el barrido periódico lo eliminará
+                }
+            }
+        } finally {
+            inFlight.remove(inFlightKey);
+        }
+    }
+
+    // --- Versión de datos ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationDataChanged(ReservationDataChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClassroomDataChanged(ClassroomDataChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    // --- Limpieza ---
+
+    // Olvida trabajos terminados y borra archivos de versiones anteriores sin uso durante el periodo de retención
+    @Scheduled(fixedDelayString = "${app.exports.cleanup-interval:PT10M}")
+    public void evictExpired() {
+        LocalDateTime jobCutoff = LocalDateTime.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(jobCutoff));
+
+        String currentPrefix = dataVersion.get() + "-";
+        Instant fileCutoff = Instant.now().minus(jobRetention);
+        deleteCachedFiles(file -> {
+            String name = file.getFileName().toString();
+            if (name.startsWith(currentPrefix) && name.endsWith(FILE_SUFFIX)) return false;
+            try {
+                return Files.getLastModifiedTime(file).toInstant().isBefore(fileCutoff);
+            } catch (IOException e) {
+                return false;
+            }
+        });
+    }
+
+    private void deleteCachedFiles(Predicate<Path> shouldDelete) {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            // Solo archivos propios, por si el directorio configurado es compartido
+            files.filter(Files::isRegularFile)
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.endsWith(FILE_SUFFIX) || name.startsWith(TEMP_PREFIX);
+                    })
+                    .filter(shouldDelete)
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException ignored) {
+                            // se reintentará en el próximo barrido
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // --- Auxiliares ---
+
+    private ExportJob findJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Trabajo de exportación no encontrado con ID: " + jobId);
+        }
+        return job;
+    }
+
+    // Cualquier formato desconocido se exporta como almanaque, igual que el endpoint síncrono
+    private String normalizeFormat(String format) {
+        if ("CUADRICULA".equalsIgnoreCase(format) || "PLANTILLA".equalsIgnoreCase(format)) {
+            return format.toUpperCase(Locale.ROOT);
+        }
+        return "LISTA";
+    }
+
+    private String cacheKey(String institution, String format, ScheduleExportService.ExportWindow window) {
+        String raw = format + "|" + institution.toLowerCase(Locale.ROOT) + "|" + window.from() + "|" + window.to();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(raw.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Un archivo reutilizado cuenta como reciente para el barrido
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException ignored) {
+            // solo afecta al momento en que se barre
+        }
+    }
+
+    private ExportJobDTO toDTO(ExportJob job) {
+        Long size = null;
+        if (job.status == ExportJobStatus.COMPLETADO) {
+            try {
+                size = Files.size(job.file);
+            } catch (IOException ignored) {
+                // el archivo fue barrido; la descarga informará que ya no está disponible
+            }
+        }
+        return ExportJobDTO.builder()
+                .jobId(job.id)
+                .status(job.status)
+                .institution(job.institution)
+                .format(job.format)
+                .from(job.window.from())
+                .to(job.window.to())
+                .cached(job.cached)
+                .submittedAt(job.submittedAt)
+                .finishedAt(job.finishedAt)
+                .sizeBytes(size)
+                .error(job.error)
+                .build();
+    }
+}
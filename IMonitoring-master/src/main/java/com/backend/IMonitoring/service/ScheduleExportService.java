@@ -2,87 +2,247 @@ package com.backend.IMonitoring.service;
 
 import com.backend.IMonitoring.model.Reservation;
 import com.backend.IMonitoring.model.Classroom;
+import com.backend.IMonitoring.model.ReservationStatus;
+import com.backend.IMonitoring.repository.ClassroomRepository;
 import com.backend.IMonitoring.repository.ReservationRepository;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
 
 @Service
 @RequiredArgsConstructor
 public class ScheduleExportService {
 
     private final ReservationRepository reservationRepository;
+    private final ClassroomRepository classroomRepository;
+
+    // Filas que SXSSF mantiene en memoria por hoja; las anteriores se vuelcan a un temporal comprimido
+    private static final int EXPORT_ROW_WINDOW = 100;
+    // Franja horaria de la plantilla semanal: bloques de 6:00 a 21:45
+    private static final int TEMPLATE_FIRST_HOUR = 6;
+    private static final int TEMPLATE_LAST_HOUR = 22;
+    // Límite de una ventana explícita (el almanaque genera una hoja por mes)
+    private static final int MAX_EXPORT_MONTHS = 12;
+    // Elementos (filas de la matriz, días, aulas) por tarea de fork-join al renderizar textos
+    private static final int RENDER_CHUNK_SIZE = 8;
+
+    // Formateadores y etiquetas compartidos por todas las celdas (son inmutables y seguros entre hilos)
+    private static final Locale SPANISH = Locale.of("es", "ES");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final String[] DAY_NAMES = new String[8];
+    private static final String[] TEMPLATE_HOUR_LABELS = new String[TEMPLATE_LAST_HOUR];
+
+    static {
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            String name = dayOfWeek.getDisplayName(TextStyle.FULL, SPANISH);
+            DAY_NAMES[dayOfWeek.getValue()] = name.substring(0, 1).toUpperCase() + name.substring(1);
+        }
+        for (int h = TEMPLATE_FIRST_HOUR; h < TEMPLATE_LAST_HOUR; h++) {
+            TEMPLATE_HOUR_LABELS[h] = String.format("%02d:00 - %02d:45", h, h);
+        }
+    }
 
-    public byte[] exportScheduleAsExcel(String institution, String format) throws IOException {
-        List<Reservation> allDatabaseReservations = reservationRepository.findAll();
-
-        List<Classroom> allClassrooms = allDatabaseReservations.stream()
-                .map(Reservation::getClassroom)
-                .filter(Objects::nonNull)
-                .distinct()
-                .sorted(Comparator.comparing(Classroom::getName))
-                .collect(Collectors.toList());
-
-        LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
-        List<Reservation> activeReservations = allDatabaseReservations.stream()
-                .filter(r -> r.getStartTime() != null && !r.getStartTime().isBefore(startOfToday))
-                .collect(Collectors.toList());
-
-        // --- FILTRO MEJORADO (Soporta múltiples instituciones y lee la de la reserva) ---
-        if (institution != null && !institution.equalsIgnoreCase("AMBAS")) {
-            activeReservations = activeReservations.stream()
-                    .filter(r -> {
-                        // 1. Prioriza la institución guardada directamente en la reserva
-                        if (r.getInstitution() != null && !r.getInstitution().isEmpty()) {
-                            return r.getInstitution().toLowerCase().contains(institution.toLowerCase());
-                        }
-                        // 2. Si es antigua y no tiene, busca en el usuario (soporta "Colombo, Unicolombo")
-                        if (r.getUser() != null && r.getUser().getInstitution() != null) {
-                            return r.getUser().getInstitution().toLowerCase().contains(institution.toLowerCase());
-                        }
-                        return false;
-                    })
-                    .collect(Collectors.toList());
+    // Ventana de fechas exportada (ambos extremos incluidos); "to" nulo = hasta la última reserva futura
+    public record ExportWindow(LocalDate from, LocalDate to) {}
+
+    // Sin fechas: desde hoy, con el alcance por defecto de cada formato
+    public ExportWindow resolveWindow(String format, LocalDate from, LocalDate to) {
+        LocalDate start = (from != null) ? from : LocalDate.now();
+        if (to == null) {
+            return new ExportWindow(start, isOpenEndedFormat(format) ? null : YearMonth.from(start).plusMonths(2).atEndOfMonth());
         }
+        if (to.isBefore(start)) {
+            throw new IllegalArgumentException("La fecha inicial de la exportación debe ser anterior o igual a la final.");
+        }
+        if (to.isAfter(start.plusMonths(MAX_EXPORT_MONTHS))) {
+            throw new IllegalArgumentException("La exportación no puede abarcar más de " + MAX_EXPORT_MONTHS + " meses.");
+        }
+        return new ExportWindow(start, to);
+    }
+
+    public void writeScheduleExcel(String institution, String format, ExportWindow window, OutputStream out) throws IOException {
+        String institutionPattern = (institution != null && !institution.equalsIgnoreCase("AMBAS"))
+                ? "%" + institution.toLowerCase() + "%"
+                : null;
+
+        // Solo la ventana que la hoja va a mostrar, ya filtrada por estado e institución en la base de datos
+        List<Reservation> activeReservations = reservationRepository.findConfirmedForExport(
+                window.from().atStartOfDay(),
+                window.to() != null ? window.to().plusDays(1).atStartOfDay() : null,
+                institutionPattern);
 
-        try (Workbook workbook = new XSSFWorkbook()) {
+        List<Classroom> allClassrooms = classroomRepository.findAll(Sort.by("name"));
+
+        ReservationIndex index = ReservationIndex.build(activeReservations);
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             if ("CUADRICULA".equalsIgnoreCase(format)) {
-                buildSemesterGridSheet(workbook, activeReservations, allClassrooms, institution);
+                buildSemesterGridSheet(workbook, index, allClassrooms, institution, window);
             } else if ("PLANTILLA".equalsIgnoreCase(format)) {
-                buildWeeklyTemplateSheet(workbook, activeReservations, allClassrooms, institution);
+                buildWeeklyTemplateSheet(workbook, index, allClassrooms, institution);
             } else {
-                buildAlmanacSheet(workbook, activeReservations, institution);
+                buildAlmanacSheet(workbook, index, institution, window);
+            }
+
+            // SXSSF escribe las hojas desde sus temporales directamente al destino, sin copia intermedia en memoria
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    // El almanaque cubre por defecto el mes inicial y los dos siguientes; la cuadrícula y la plantilla, todo lo futuro
+    private boolean isOpenEndedFormat(String format) {
+        return "CUADRICULA".equalsIgnoreCase(format) || "PLANTILLA".equalsIgnoreCase(format);
+    }
+
+    // Reservas confirmadas indexadas por aula y día (y solo por día), ordenadas por hora de inicio.
+    // Cada celda de las hojas se resuelve con una búsqueda en lugar de recorrer todas las reservas.
+    private static final class ReservationIndex {
+        private final Map<String, Map<LocalDate, List<Reservation>>> byClassroomAndDay = new HashMap<>();
+        private final Map<LocalDate, List<Reservation>> byDay = new HashMap<>();
+        private LocalDateTime maxStartTime;
+
+        static ReservationIndex build(List<Reservation> reservations) {
+            ReservationIndex index = new ReservationIndex();
+            for (Reservation r : reservations) {
+                if (index.maxStartTime == null || r.getStartTime().isAfter(index.maxStartTime)) {
+                    index.maxStartTime = r.getStartTime();
+                }
+                if (r.getStatus() != ReservationStatus.CONFIRMADA) continue;
+                LocalDate day = r.getStartTime().toLocalDate();
+                index.byDay.computeIfAbsent(day, d -> new ArrayList<>()).add(r);
+                if (r.getClassroom() != null) {
+                    index.byClassroomAndDay
+                            .computeIfAbsent(r.getClassroom().getId(), id -> new HashMap<>())
+                            .computeIfAbsent(day, d -> new ArrayList<>())
+                            .add(r);
+                }
             }
+            Comparator<Reservation> byStart = Comparator.comparing(Reservation::getStartTime);
+            index.byDay.values().forEach(list -> list.sort(byStart));
+            index.byClassroomAndDay.values().forEach(days -> days.values().forEach(list -> list.sort(byStart)));
+            return index;
+        }
+
+        List<Reservation> forDay(LocalDate day) {
+            return byDay.getOrDefault(day, Collections.emptyList());
+        }
+
+        List<Reservation> forClassroomDay(String classroomId, LocalDate day) {
+            return byClassroomAndDay.getOrDefault(classroomId, Collections.emptyMap()).getOrDefault(day, Collections.emptyList());
+        }
+
+        Collection<List<Reservation>> forClassroom(String classroomId) {
+            return byClassroomAndDay.getOrDefault(classroomId, Collections.emptyMap()).values();
+        }
+
+        Optional<LocalDateTime> maxStartTime() {
+            return Optional.ofNullable(maxStartTime);
+        }
+    }
+
+    // Ocupante dominante de una celda de la plantilla: conteo por (propósito, usuario) en una sola pasada
+    private static final class CellTally {
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Reservation> firstByKey = new HashMap<>();
+        private Reservation dominant;
+        private int dominantCount;
+
+        void add(Reservation r) {
+            String key = r.getPurpose() + "_" + (r.getUser() != null ? r.getUser().getName() : "");
+            int count = counts.merge(key, 1, Integer::sum);
+            Reservation first = firstByKey.computeIfAbsent(key, k -> r);
+            if (count > dominantCount) {
+                dominantCount = count;
+                dominant = first;
+            }
+        }
+    }
+
+    // Textos de celda calculados antes de escribir: el escritor de POI (un solo hilo) solo los copia
+    private record DayText(String text, int lines) {}
+
+    private record GridRow(LocalDate date, String[] cells, int maxLines) {}
+
+    // Aplica el renderizador a 0..count-1 en el pool de fork-join y devuelve los resultados en orden
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> renderInParallel(int count, IntFunction<T> renderer) {
+        Object[] results = new Object[count];
+        if (count > 0) {
+            ForkJoinPool.commonPool().invoke(new RenderTask(results, renderer, 0, count));
+        }
+        return (List<T>) Arrays.asList(results);
+    }
+
+    private static final class RenderTask extends RecursiveAction {
+        private final Object[] results;
+        private final IntFunction<?> renderer;
+        private final int from;
+        private final int to;
+
+        RenderTask(Object[] results, IntFunction<?> renderer, int from, int to) {
+            this.results = results;
+            this.renderer = renderer;
+            this.from = from;
+            this.to = to;
+        }
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+        @Override
+        protected void compute() {
+            if (to - from <= RENDER_CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    results[i] = renderer.apply(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RenderTask(results, renderer, from, mid), new RenderTask(results, renderer, mid, to));
         }
     }
 
-    private String getEffectiveInstitution(Reservation res) {
+    private static String getEffectiveInstitution(Reservation res) {
         if (res.getInstitution() != null && !res.getInstitution().isEmpty()) return res.getInstitution();
         if (res.getUser() != null && res.getUser().getInstitution() != null) return res.getUser().getInstitution();
         return "Sin Inst.";
     }
 
     // --- ALMANAQUE MENSUAL ---
-    private void buildAlmanacSheet(Workbook workbook, List<Reservation> reservations, String institution) {
-        LocalDate today = LocalDate.now();
-        for (int i = 0; i < 3; i++) {
-            YearMonth yearMonth = YearMonth.from(today.plusMonths(i));
-            String monthName = yearMonth.getMonth().getDisplayName(TextStyle.FULL, new Locale("es", "ES"));
+    private void buildAlmanacSheet(Workbook workbook, ReservationIndex index, String institution, ExportWindow window) {
+        YearMonth firstMonth = YearMonth.from(window.from());
+        long monthCount = firstMonth.until(YearMonth.from(window.to()), ChronoUnit.MONTHS) + 1;
+
+        // Todos los días de los meses exportados, renderizados en paralelo
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate d = firstMonth.atDay(1); !d.isAfter(firstMonth.plusMonths(monthCount - 1).atEndOfMonth()); d = d.plusDays(1)) {
+            days.add(d);
+        }
+        List<DayText> dayTexts = renderInParallel(days.size(), i -> renderAlmanacDay(days.get(i), index.forDay(days.get(i))));
+        int dayOffset = 0;
+
+        for (int i = 0; i < monthCount; i++) {
+            YearMonth yearMonth = firstMonth.plusMonths(i);
+            String monthName = yearMonth.getMonth().getDisplayName(TextStyle.FULL, SPANISH);
             monthName = monthName.substring(0, 1).toUpperCase() + monthName.substring(1) + " " + yearMonth.getYear();
 
             if (!institution.equals("AMBAS")) {
@@ -131,38 +291,36 @@ public class ScheduleExportService {
 
                 Cell cell = weekRow.createCell(col);
 
-                List<Reservation> dayRes = reservations.stream()
-                        .filter(r -> r.getStartTime().toLocalDate().equals(currentDate))
-                        .filter(r -> r.getStatus().name().equals("CONFIRMADA"))
-                        .sorted(Comparator.comparing(Reservation::getStartTime))
-                        .collect(Collectors.toList());
-
-                StringBuilder cellText = new StringBuilder();
-                cellText.append("🗓️ DÍA ").append(day).append("\n");
+                DayText dayText = dayTexts.get(dayOffset + day - 1);
+                if (dayText.lines() > currentMaxLines) currentMaxLines = dayText.lines();
 
-                if (!dayRes.isEmpty()) {
-                    cellText.append("----------------\n");
-                    for (Reservation res : dayRes) {
-                        String time = res.getStartTime().format(DateTimeFormatter.ofPattern("HH:mm")) + "-" + res.getEndTime().format(DateTimeFormatter.ofPattern("HH:mm"));
-                        String room = res.getClassroom() != null ? res.getClassroom().getName() : "?";
-                        String user = res.getUser() != null ? res.getUser().getName() : "Desc.";
-                        String inst = getEffectiveInstitution(res);
-
-                        cellText.append(String.format("• %s | %s\n  %s (%s)\n", time, room, user, inst));
-                    }
-                    int lines = dayRes.size() * 2 + 3;
-                    if (lines > currentMaxLines) currentMaxLines = lines;
-                }
-
-                cell.setCellValue(cellText.toString().trim());
+                cell.setCellValue(dayText.text());
                 cell.setCellStyle(dayStyle);
             }
             weekRow.setHeightInPoints(Math.max(70, currentMaxLines * 12));
+            dayOffset += yearMonth.lengthOfMonth();
         }
     }
 
+    private static DayText renderAlmanacDay(LocalDate date, List<Reservation> dayRes) {
+        StringBuilder cellText = new StringBuilder();
+        cellText.append("🗓️ DÍA ").append(date.getDayOfMonth()).append("\n");
+        if (dayRes.isEmpty()) {
+            return new DayText(cellText.toString().trim(), 0);
+        }
+        cellText.append("----------------\n");
+        for (Reservation res : dayRes) {
+            String room = res.getClassroom() != null ? res.getClassroom().getName() : "?";
+            String user = res.getUser() != null ? res.getUser().getName() : "Desc.";
+            cellText.append("• ").append(res.getStartTime().format(TIME_FORMATTER)).append('-').append(res.getEndTime().format(TIME_FORMATTER))
+                    .append(" | ").append(room).append("\n  ")
+                    .append(user).append(" (").append(getEffectiveInstitution(res)).append(")\n");
+        }
+        return new DayText(cellText.toString().trim(), dayRes.size() * 2 + 3);
+    }
+
     // --- HORARIO FIJO SEMANAL (CLASES RECURRENTES) ---
-    private void buildWeeklyTemplateSheet(Workbook workbook, List<Reservation> reservations, List<Classroom> classrooms, String institution) {
+    private void buildWeeklyTemplateSheet(Workbook workbook, ReservationIndex index, List<Classroom> classrooms, String institution) {
         String sheetName = "Horario Base Fijo";
         Sheet sheet = workbook.createSheet(sheetName);
 
@@ -191,7 +349,14 @@ public class ScheduleExportService {
         int currentRow = 0;
         String[] days = {"Hora", "Lunes", "Martes", "Miércoles", "Jueves", "Viernes", "Sábado"};
 
-        for (Classroom classroom : classrooms) {
+        // Conteo y texto de cada aula en paralelo; aquí solo se escriben las filas
+        List<String[][]> renderedRooms = renderInParallel(classrooms.size(),
+                i -> renderWeeklyTemplate(tallyWeeklyCells(index.forClassroom(classrooms.get(i).getId()))));
+
+        for (int roomIdx = 0; roomIdx < classrooms.size(); roomIdx++) {
+            Classroom classroom = classrooms.get(roomIdx);
+            String[][] cells = renderedRooms.get(roomIdx);
+
             Row titleRow = sheet.createRow(currentRow++);
             Cell titleCell = titleRow.createCell(0);
             titleCell.setCellValue("AULA: " + classroom.getName().toUpperCase());
@@ -205,37 +370,17 @@ public class ScheduleExportService {
                 sheet.setColumnWidth(i, i == 0 ? 4000 : 6500);
             }
 
-            for (int h = 6; h < 22; h++) {
+            for (int h = TEMPLATE_FIRST_HOUR; h < TEMPLATE_LAST_HOUR; h++) {
                 Row row = sheet.createRow(currentRow++);
-                row.createCell(0).setCellValue(String.format("%02d:00 - %02d:45", h, h));
+                row.createCell(0).setCellValue(TEMPLATE_HOUR_LABELS[h]);
                 row.getCell(0).setCellStyle(wrapStyle);
                 row.setHeightInPoints(40);
 
                 for (int d = 1; d <= 6; d++) {
-                    final int targetDay = d;
-                    final int targetHour = h;
-
-                    List<Reservation> matching = reservations.stream()
-                            .filter(r -> r.getClassroom() != null && r.getClassroom().getId().equals(classroom.getId()))
-                            .filter(r -> r.getStartTime().getDayOfWeek().getValue() == targetDay)
-                            .filter(r -> {
-                                int startTotalMins = r.getStartTime().getHour() * 60 + r.getStartTime().getMinute();
-                                int endTotalMins = r.getEndTime().getHour() * 60 + r.getEndTime().getMinute();
-                                int cellStartMins = targetHour * 60;
-                                int cellEndMins = cellStartMins + 45;
-                                return startTotalMins < cellEndMins && endTotalMins > cellStartMins;
-                            })
-                            .filter(r -> r.getStatus().name().equals("CONFIRMADA"))
-                            .collect(Collectors.toList());
-
-                    if (!matching.isEmpty()) {
-                        Reservation dominant = findMostFrequent(matching);
-                        String inst = getEffectiveInstitution(dominant);
-                        String userName = dominant.getUser() != null ? dominant.getUser().getName() : "Desconocido";
-                        String purpose = dominant.getPurpose() != null ? dominant.getPurpose() : "Clase";
-
+                    String text = cells[d - 1][h - TEMPLATE_FIRST_HOUR];
+                    if (text != null) {
                         Cell c = row.createCell(d);
-                        c.setCellValue(String.format("%s\n%s (%s)", purpose, userName, inst));
+                        c.setCellValue(text);
                         c.setCellStyle(wrapStyle);
                     }
                 }
@@ -244,17 +389,50 @@ public class ScheduleExportService {
         }
     }
 
-    private Reservation findMostFrequent(List<Reservation> list) {
-        return list.stream()
-                .collect(Collectors.groupingBy(r -> r.getPurpose() + "_" + (r.getUser()!=null?r.getUser().getName():""), Collectors.counting()))
-                .entrySet().stream().max(Map.Entry.comparingByValue())
-                .flatMap(e -> list.stream().filter(r -> (r.getPurpose() + "_" + (r.getUser()!=null?r.getUser().getName():"")).equals(e.getKey())).findFirst())
-                .orElse(list.get(0));
+    private static String[][] renderWeeklyTemplate(CellTally[][] tallies) {
+        String[][] texts = new String[tallies.length][];
+        for (int d = 0; d < tallies.length; d++) {
+            texts[d] = new String[tallies[d].length];
+            for (int h = 0; h < tallies[d].length; h++) {
+                if (tallies[d][h] == null) continue;
+                Reservation dominant = tallies[d][h].dominant;
+                String userName = dominant.getUser() != null ? dominant.getUser().getName() : "Desconocido";
+                String purpose = dominant.getPurpose() != null ? dominant.getPurpose() : "Clase";
+                texts[d][h] = purpose + "\n" + userName + " (" + getEffectiveInstitution(dominant) + ")";
+            }
+        }
+        return texts;
+    }
+
+    // [día lunes..sábado][hora 6..21]: cada reserva se suma a los bloques de 45 minutos que toca
+    private static CellTally[][] tallyWeeklyCells(Collection<List<Reservation>> classroomDays) {
+        CellTally[][] cells = new CellTally[6][TEMPLATE_LAST_HOUR - TEMPLATE_FIRST_HOUR];
+        for (List<Reservation> dayReservations : classroomDays) {
+            for (Reservation r : dayReservations) {
+                int day = r.getStartTime().getDayOfWeek().getValue();
+                if (day > 6) continue;
+                int startTotalMins = r.getStartTime().getHour() * 60 + r.getStartTime().getMinute();
+                int endTotalMins = r.getEndTime().getHour() * 60 + r.getEndTime().getMinute();
+                for (int h = TEMPLATE_FIRST_HOUR; h < TEMPLATE_LAST_HOUR; h++) {
+                    int cellStartMins = h * 60;
+                    int cellEndMins = cellStartMins + 45;
+                    if (startTotalMins < cellEndMins && endTotalMins > cellStartMins) {
+                        CellTally tally = cells[day - 1][h - TEMPLATE_FIRST_HOUR];
+                        if (tally == null) {
+                            tally = new CellTally();
+                            cells[day - 1][h - TEMPLATE_FIRST_HOUR] = tally;
+                        }
+                        tally.add(r);
+                    }
+                }
+            }
+        }
+        return cells;
     }
 
 
     // --- MATRIZ SEMESTRAL ---
-    private void buildSemesterGridSheet(Workbook workbook, List<Reservation> reservations, List<Classroom> classrooms, String institution) {
+    private void buildSemesterGridSheet(Workbook workbook, ReservationIndex index, List<Classroom> classrooms, String institution, ExportWindow window) {
         String sheetName = "Matriz Semestral (" + (institution.equals("AMBAS") ? "General" : institution) + ")";
         Sheet sheet = workbook.createSheet(sheetName);
 
@@ -306,78 +484,69 @@ public class ScheduleExportService {
             sheet.setColumnWidth(i + 2, 8500);
         }
 
-        LocalDate today = LocalDate.now();
-        LocalDate endDate = today.plusMonths(5);
+        LocalDate firstDate = window.from();
+        LocalDate endDate = window.to();
+        if (endDate == null) {
+            endDate = firstDate.plusMonths(5);
+            Optional<LocalDateTime> maxResDate = index.maxStartTime();
+            if (maxResDate.isPresent() && maxResDate.get().toLocalDate().isAfter(endDate)) {
+                endDate = maxResDate.get().toLocalDate();
+            }
+        }
 
-        Optional<LocalDateTime> maxResDate = reservations.stream()
-                .map(Reservation::getStartTime)
-                .max(LocalDateTime::compareTo);
-        if (maxResDate.isPresent() && maxResDate.get().toLocalDate().isAfter(endDate)) {
-            endDate = maxResDate.get().toLocalDate();
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = firstDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (date.getDayOfWeek() != DayOfWeek.SUNDAY) dates.add(date);
         }
+        List<GridRow> gridRows = renderInParallel(dates.size(), i -> renderGridRow(dates.get(i), classrooms, index));
 
+        String freeText = institution.equalsIgnoreCase("AMBAS") ? "Libre" : "Sin reservas";
         int rowIdx = 1;
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-
-        for (LocalDate date = today; !date.isAfter(endDate); date = date.plusDays(1)) {
-            if (date.getDayOfWeek().getValue() == 7) continue;
-
+        for (GridRow gridRow : gridRows) {
             Row row = sheet.createRow(rowIdx++);
 
             Cell dateCell = row.createCell(0);
-            dateCell.setCellValue(date.format(dateFormatter));
+            dateCell.setCellValue(gridRow.date().format(DATE_FORMATTER));
             dateCell.setCellStyle(dateStyle);
 
             Cell dayCell = row.createCell(1);
-            String dayName = date.getDayOfWeek().getDisplayName(TextStyle.FULL, new Locale("es", "ES"));
-            dayName = dayName.substring(0, 1).toUpperCase() + dayName.substring(1);
-            dayCell.setCellValue(dayName);
+            dayCell.setCellValue(DAY_NAMES[gridRow.date().getDayOfWeek().getValue()]);
             dayCell.setCellStyle(dateStyle);
 
-            int maxLinesInRow = 1;
-            final LocalDate currentDate = date;
-
-            for (int i = 0; i < classrooms.size(); i++) {
-                Classroom currentRoom = classrooms.get(i);
+            String[] cells = gridRow.cells();
+            for (int i = 0; i < cells.length; i++) {
                 Cell roomCell = row.createCell(i + 2);
-
-                List<Reservation> dayReservations = reservations.stream()
-                        .filter(r -> r.getClassroom() != null
-                                && r.getClassroom().getId().equals(currentRoom.getId())
-                                && r.getStartTime().toLocalDate().equals(currentDate)
-                                && r.getStatus().name().equals("CONFIRMADA"))
-                        .sorted(Comparator.comparing(Reservation::getStartTime))
-                        .collect(Collectors.toList());
-
-                if (dayReservations.isEmpty()) {
-                    if (institution.equalsIgnoreCase("AMBAS")) {
-                        roomCell.setCellValue("Libre");
-                    } else {
-                        roomCell.setCellValue("Sin reservas");
-                    }
+                if (cells[i] == null) {
+                    roomCell.setCellValue(freeText);
                     roomCell.setCellStyle(freeStyle);
                 } else {
-                    StringBuilder cellText = new StringBuilder();
-                    for (Reservation res : dayReservations) {
-                        String userInst = getEffectiveInstitution(res);
-                        String userName = res.getUser() != null ? res.getUser().getName() : "Desconocido";
-                        String purpose = res.getPurpose() != null ? res.getPurpose() : "Sin motivo";
-                        String timeRange = res.getStartTime().format(timeFormatter) + " - " + res.getEndTime().format(timeFormatter);
-
-                        cellText.append(String.format("🕒 %s\n👤 %s (%s)\n📝 %s\n\n", timeRange, userName, userInst, purpose));
-                    }
-
-                    roomCell.setCellValue(cellText.toString().trim());
+                    roomCell.setCellValue(cells[i]);
                     roomCell.setCellStyle(wrapStyle);
-
-                    int lines = dayReservations.size() * 4;
-                    if (lines > maxLinesInRow) {
-                        maxLinesInRow = lines;
-                    }
                 }
             }
-            row.setHeightInPoints(Math.max(25, maxLinesInRow * 15));
+            row.setHeightInPoints(Math.max(25, gridRow.maxLines() * 15));
+        }
+    }
+
+    // Una fila de la matriz: texto por aula (null = sin reservas) y líneas de la celda más alta
+    private static GridRow renderGridRow(LocalDate date, List<Classroom> classrooms, ReservationIndex index) {
+        String[] cells = new String[classrooms.size()];
+        int maxLinesInRow = 1;
+        for (int i = 0; i < classrooms.size(); i++) {
+            List<Reservation> dayReservations = index.forClassroomDay(classrooms.get(i).getId(), date);
+            if (dayReservations.isEmpty()) continue;
+
+            StringBuilder cellText = new StringBuilder();
+            for (Reservation res : dayReservations) {
+                String userName = res.getUser() != null ? res.getUser().getName() : "Desconocido";
+                String purpose = res.getPurpose() != null ? res.getPurpose() : "Sin motivo";
+                cellText.append("🕒 ").append(res.getStartTime().format(TIME_FORMATTER)).append(" - ").append(res.getEndTime().format(TIME_FORMATTER))
+                        .append("\n👤 ").append(userName).append(" (").append(getEffectiveInstitution(res)).append(")")
+                        .append("\n📝 ").append(purpose).append("\n\n");
+            }
+            cells[i] = cellText.toString().trim();
+            maxLinesInRow = Math.max(maxLinesInRow, dayReservations.size() * 4);
         }
+        return new GridRow(date, cells, maxLinesInRow);
     }
-}
\ No newline at end of file
+}
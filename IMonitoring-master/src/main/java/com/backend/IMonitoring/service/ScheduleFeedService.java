@@ -0,0 +1,267 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+import com.backend.IMonitoring.dto.FeedVersionRow;
+import com.backend.IMonitoring.dto.ScheduleFeedRow;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
+import com.backend.IMonitoring.events.ReservationDataChangedEvent;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
+import com.backend.IMonitoring.exceptions.ResourceNotFoundException;
+import com.backend.IMonitoring.repository.BuildingRepository;
+import com.backend.IMonitoring.repository.ClassroomRepository;
+import com.backend.IMonitoring.repository.ReservationRepository;
+import com.backend.IMonitoring.repository.UserRepository;
+import com.backend.IMonitoring.utils.CsvUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Horarios en CSV e iCalendar por aula, edificio o usuario, escritos fila a fila desde un cursor.
+// El ETag (cantidad, última modificación y último cambio conocido) y Last-Modified permiten responder 304
+// a los clientes que consultan seguido.
+@Service
+@RequiredArgsConstructor
+public class ScheduleFeedService {
+
+    public enum FeedScope { CLASSROOM, BUILDING, USER }
+
+    public enum FeedFormat { CSV, ICS }
+
+    // Ventana ya resuelta: [from, to) en fecha-hora, con el nombre que identifica al feed
+    public record FeedRequest(FeedScope scope, String id, String label, LocalDateTime from, LocalDateTime to) {}
+
+    public record FeedVersion(String eTag, Instant lastModified) {}
+
+    private static final int DEFAULT_DAYS_BACK = 30;
+    private static final int DEFAULT_DAYS_AHEAD = 180;
+    private static final int MAX_WINDOW_DAYS = 400;
+    private static final int FLUSH_INTERVAL = 500;
+    // Octetos por línea de contenido antes de plegar (RFC 5545, 3.1)
+    private static final int ICS_LINE_OCTETS = 75;
+
+    // Las reservas se guardan en UTC (ver LocalDateTime.now(ZoneOffset.UTC) en los servicios)
+    private static final DateTimeFormatter ICS_UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter CSV_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final ReservationRepository reservationRepository;
+    private final ClassroomRepository classroomRepository;
+    private final BuildingRepository buildingRepository;
+    private final UserRepository userRepository;
+
+    // Última escritura conocida por aula (incluye borrados, que no dejan updatedAt) y de forma global.
+    // Al arrancar no se sabe qué cambió antes, así que el arranque cuenta como modificación.
+    private final Map<String, Instant> classroomChanges = new ConcurrentHashMap<>();
+    private volatile Instant lastChange = Instant.now();
+    private volatile Instant lastGlobalChange = lastChange;
+
+    public FeedRequest resolve(FeedScope scope, String id, LocalDate from, LocalDate to) {
+        String label = switch (scope) {
+            case CLASSROOM -> classroomRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Aula no encontrada con ID: " + id))
+                    .getName();
+            case BUILDING -> buildingRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Edificio no encontrado con ID: " + id))
+                    .getName();
+            case USER -> userRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con ID: " + id))
+                    .getName();
+        };
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = (from != null) ? from : today.minusDays(DEFAULT_DAYS_BACK);
+        LocalDate end = (to != null) ? to : today.plusDays(DEFAULT_DAYS_AHEAD);
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("La fecha inicial del feed debe ser anterior o igual a la final.");
+        }
+        if (start.plusDays(MAX_WINDOW_DAYS).isBefore(end)) {
+            throw new IllegalArgumentException("El feed no puede abarcar más de " + MAX_WINDOW_DAYS + " días.");
+        }
+        return new FeedRequest(scope, id, label, start.atStartOfDay(), end.plusDays(1).atStartOfDay());
+    }
+
+    @Transactional(readOnly = true)
+    public FeedVersion version(FeedRequest request, FeedFormat format) {
+        FeedVersionRow row = reservationRepository.findFeedVersion(
+                idFor(request, FeedScope.CLASSROOM), idFor(request, FeedScope.BUILDING), idFor(request, FeedScope.USER),
+                request.from(), request.to());
+        long total = row.getTotal() != null ? row.getTotal() : 0;
+
+        Instant lastModified = knownChange(request);
+        if (row.getLastUpdated() != null) {
+            Instant lastUpdated = row.getLastUpdated().atZone(ZoneId.systemDefault()).toInstant();
+            if (lastUpdated.isAfter(lastModified)) lastModified = lastUpdated;
+        }
+
+        // Un borrado cambia la cantidad aunque no mueva el máximo de updatedAt; renombrar un aula, edificio o
+        // usuario no toca las reservas, pero sí el último cambio conocido
+        String raw = format + "|" + request.scope() + "|" + request.id() + "|" + request.from() + "|" + request.to()
+                + "|" + total + "|" + row.getLastUpdated() + "|" + knownChange(request);
+        return new FeedVersion("W/\"" + sha256(raw).substring(0, 32) + "\"", lastModified);
+    }
+
+    @Transactional(readOnly = true)
+    public void writeCsv(FeedRequest request, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,aula,edificio,usuario,proposito,inicio,fin,estado\r\n");
+        try (Stream<ScheduleFeedRow> rows = streamRows(request)) {
+            int written = 0;
+            Iterator<ScheduleFeedRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ScheduleFeedRow row = iterator.next();
+                writer.write(CsvUtils.field(row.getId()) + "," + CsvUtils.field(row.getClassroomName()) + ","
+                        + CsvUtils.field(row.getBuildingName()) + "," + CsvUtils.field(row.getUserName()) + ","
+                        + CsvUtils.field(row.getPurpose()) + ","
+                        + row.getStartTime().format(CSV_DATE_TIME) + "," + row.getEndTime().format(CSV_DATE_TIME) + ","
+                        + row.getStatus() + "\r\n");
+                if (++written % FLUSH_INTERVAL == 0) writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    @Transactional(readOnly = true)
+    public void writeIcs(FeedRequest request, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeIcsLine(writer, "BEGIN:VCALENDAR");
+        writeIcsLine(writer, "VERSION:2.0");
+        writeIcsLine(writer, "PRODID:-//IMonitoring//Horarios//ES");
+        writeIcsLine(writer, "CALSCALE:GREGORIAN");
+        writeIcsLine(writer, "METHOD:PUBLISH");
+        writeIcsLine(writer, "X-WR-CALNAME:" + icsText("Horario - " + request.label()));
+        writeIcsLine(writer, "X-PUBLISHED-TTL:PT15M");
+        try (Stream<ScheduleFeedRow> rows = streamRows(request)) {
+            int written = 0;
+            Iterator<ScheduleFeedRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ScheduleFeedRow row = iterator.next();
+                String location = row.getBuildingName() != null
+                        ? row.getClassroomName() + " - " + row.getBuildingName()
+                        : row.getClassroomName();
+                LocalDateTime stamp = row.getUpdatedAt() != null
+                        ? LocalDateTime.ofInstant(row.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant(), ZoneOffset.UTC)
+                        : row.getStartTime();
+                writeIcsLine(writer, "BEGIN:VEVENT");
+                writeIcsLine(writer, "UID:" + row.getId() + "@imonitoring");
+                writeIcsLine(writer, "DTSTAMP:" + stamp.format(ICS_UTC));
+                writeIcsLine(writer, "DTSTART:" + row.getStartTime().format(ICS_UTC));
+                writeIcsLine(writer, "DTEND:" + row.getEndTime().format(ICS_UTC));
+                writeIcsLine(writer, "SUMMARY:" + icsText(row.getPurpose()));
+                writeIcsLine(writer, "LOCATION:" + icsText(location));
+                writeIcsLine(writer, "DESCRIPTION:" + icsText("Reservado por: " + row.getUserName()));
+                writeIcsLine(writer, "STATUS:CONFIRMED");
+                writeIcsLine(writer, "END:VEVENT");
+                if (++written % FLUSH_INTERVAL == 0) writer.flush();
+            }
+        }
+        writeIcsLine(writer, "END:VCALENDAR");
+        writer.flush();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationDataChanged(ReservationDataChangedEvent event) {
+        if (event.spans() == null) {
+            markGlobalChange();
+            return;
+        }
+        Instant now = nextChange();
+        for (ClassroomUsageSpan span : event.spans()) {
+            classroomChanges.put(span.getClassroomId(), now);
+        }
+    }
+
+    // Los feeds imprimen nombres de aula, edificio y usuario: un cambio en ellos invalida todos los feeds
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClassroomDataChanged(ClassroomDataChangedEvent event) {
+        markGlobalChange();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        markGlobalChange();
+    }
+
+    private void markGlobalChange() {
+        lastGlobalChange = nextChange();
+        classroomChanges.clear();
+    }
+
+    // Registra un cambio en lastChange, estrictamente creciente: dos cambios en el mismo instante del reloj
+    // deben dar ETags distintos
+    private synchronized Instant nextChange() {
+        Instant now = Instant.now();
+        lastChange = now.isAfter(lastChange) ? now : lastChange.plusNanos(1);
+        return lastChange;
+    }
+
+    // Un aula solo mira sus propios cambios; edificio y usuario usan el último cambio de cualquier aula
+    private Instant knownChange(FeedRequest request) {
+        if (request.scope() != FeedScope.CLASSROOM) return lastChange;
+        Instant classroomChange = classroomChanges.get(request.id());
+        return (classroomChange != null && classroomChange.isAfter(lastGlobalChange)) ? classroomChange : lastGlobalChange;
+    }
+
+    private Stream<ScheduleFeedRow> streamRows(FeedRequest request) {
+        return reservationRepository.streamFeedRows(
+                idFor(request, FeedScope.CLASSROOM), idFor(request, FeedScope.BUILDING), idFor(request, FeedScope.USER),
+                request.from(), request.to());
+    }
+
+    private String idFor(FeedRequest request, FeedScope scope) {
+        return request.scope() == scope ? request.id() : null;
+    }
+
+    static String icsText(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n")
+                .replace("\r", "\\n");
+    }
+
+    // Pliega en 75 octetos UTF-8 sin partir caracteres; la continuación empieza con un espacio
+    static void writeIcsLine(Writer writer, String line) throws IOException {
+        int octets = 0;
+        int limit = ICS_LINE_OCTETS;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + size > limit) {
+                writer.write("\r\n ");
+                octets = 0;
+                limit = ICS_LINE_OCTETS - 1;
+            }
+            writer.write(Character.toChars(codePoint));
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        writer.write("\r\n");
+    }
+
+    private static String sha256(String raw) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(raw.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
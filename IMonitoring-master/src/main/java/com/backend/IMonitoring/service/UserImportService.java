@@ -0,0 +1,240 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ImportResultDTO;
+import com.backend.IMonitoring.dto.ImportRowResultDTO;
+import com.backend.IMonitoring.dto.ImportRowStatus;
+import com.backend.IMonitoring.dto.UserDTO;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
+import com.backend.IMonitoring.events.UsersImportedEvent;
+import com.backend.IMonitoring.model.Rol;
+import com.backend.IMonitoring.model.User;
+import com.backend.IMonitoring.repository.UserRepository;
+import com.backend.IMonitoring.utils.ExcelRowStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+// Carga masiva de usuarios por lotes: una consulta IN para correos existentes, hash BCrypt en paralelo,
+// INSERT por JDBC batch, un único registro de auditoría y correos de bienvenida en una cola aparte.
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+    // Columnas de la plantilla de carga: nombre, correo, rol, tipo doc., número doc., institución, carrera, código
+    private static final int USER_IMPORT_COLUMNS = 8;
+    private static final int BATCH_SIZE = 500;
+
+    // Si otra transacción registró el correo entre la consulta y el INSERT, la fila no se inserta y se informa
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO users (id, name, email, password, role, career, enabled, " +
+            "document_type, document_number, institution, student_code) " +
+            "VALUES (?, ?, ?, ?, ?, ?, TRUE, ?, ?, ?, ?) ON CONFLICT (email) DO NOTHING";
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditLogService auditLogService;
+    private final ExecutorService passwordHashExecutor;
+    private final ExecutorService mailExecutor;
+
+    // Fila ya validada, a la espera de su lote
+    private record PendingUser(int rowNumber, String id, UserDTO dto, String rawPassword) {
+    }
+
+    // Estado de una carga mientras se recorre el archivo
+    private static final class ImportRun {
+        final User performingUser;
+        final ImportProgress progress;
+        final Set<String> seenEmails = new HashSet<>();
+        final List<PendingUser> pending = new ArrayList<>(BATCH_SIZE);
+        final List<ImportRowResultDTO> rows = new ArrayList<>();
+        final List<UsersImportedEvent.NewAccount> accounts = new ArrayList<>();
+
+        ImportRun(User performingUser, ImportProgress progress) {
+            this.performingUser = performingUser;
+            this.progress = progress;
+        }
+
+        void fail(int rowNumber, String message) {
+            progress.rowFailed();
+            rows.add(ImportRowResultDTO.builder().row(rowNumber).status(ImportRowStatus.ERROR).message(message).build());
+        }
+    }
+
+    // Recibe el temporal de ExcelRowStream.copyToTempFile y lo borra al terminar
+    @Transactional
+    public ImportResultDTO importUsers(Path file, User performingUser, ImportProgress progress) throws IOException {
+        ImportRun run = new ImportRun(performingUser, progress);
+
+        // Lectura por eventos desde un temporal: la hoja nunca se carga completa en memoria
+        try (ExcelRowStream rows = ExcelRowStream.open(file, USER_IMPORT_COLUMNS)) {
+            for (ExcelRowStream.ExcelRow row : rows) {
+                if (row.rowNumber() == 1) continue;
+                progress.checkCancelled();
+                readRow(row, run);
+                if (run.pending.size() >= BATCH_SIZE) {
+                    flush(run);
+                }
+            }
+        }
+        flush(run);
+        progress.checkCancelled();
+
+        auditLogService.logAction(
+                "CARGA_MASIVA_USUARIOS",
+                performingUser.getEmail(),
+                "Se ejecutó una carga masiva. Éxitos: " + progress.getCreated() + " | Errores: " + progress.getFailed()
+        );
+
+        if (progress.getCreated() > 0) {
+            eventPublisher.publishEvent(new UserDataChangedEvent(null));
+            eventPublisher.publishEvent(new UsersImportedEvent(run.accounts));
+        }
+
+        run.rows.sort(Comparator.comparingInt(ImportRowResultDTO::getRow));
+        return ImportResultDTO.builder()
+                .rowsRead(progress.getRowsRead())
+                .created(progress.getCreated())
+                .failed(progress.getFailed())
+                .rows(run.rows)
+                .message(summary(run))
+                .build();
+    }
+
+    // Valida en memoria con las mismas reglas que el alta individual; la fila queda pendiente para su lote
+    private void readRow(ExcelRowStream.ExcelRow row, ImportRun run) {
+        String name = row.cell(0);
+        String email = row.cell(1);
+        String roleStr = row.cell(2);
+        if (name.isEmpty() || email.isEmpty() || roleStr.isEmpty()) return;
+        run.progress.rowRead();
+
+        try {
+            UserDTO dto = new UserDTO();
+            dto.setName(name);
+            dto.setEmail(email);
+            dto.setRole(Rol.valueOf(roleStr.toUpperCase()));
+            dto.setDocumentType(emptyToNull(row.cell(3)));
+            dto.setDocumentNumber(emptyToNull(row.cell(4)));
+            dto.setInstitution(emptyToNull(row.cell(5)));
+            dto.setCareer(emptyToNull(row.cell(6)));
+            dto.setStudentCode(emptyToNull(row.cell(7)));
+
+            userService.checkCreationPermission(dto, run.performingUser);
+            String rawPassword = userService.defaultPassword(email);
+
+            if (!run.seenEmails.add(email)) {
+                throw new IllegalArgumentException("El correo electrónico '" + email + "' está repetido en el archivo.");
+            }
+            run.pending.add(new PendingUser(row.rowNumber(), UUID.randomUUID().toString(), dto, rawPassword));
+        } catch (Exception e) {
+            run.fail(row.rowNumber(), e.getMessage());
+        }
+    }
+
+    private void flush(ImportRun run) {
+        if (run.pending.isEmpty()) return;
+
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(
+                run.pending.stream().map(p -> p.dto().getEmail()).toList()));
+        List<PendingUser> batch = new ArrayList<>(run.pending.size());
+        for (PendingUser p : run.pending) {
+            if (existing.contains(p.dto().getEmail())) {
+                run.fail(p.rowNumber(), "El correo electrónico '" + p.dto().getEmail() + "' ya está registrado.");
+            } else {
+                batch.add(p);
+            }
+        }
+        run.pending.clear();
+        if (batch.isEmpty()) return;
+
+        List<String> hashes = hashPasswords(batch);
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            UserDTO dto = batch.get(i).dto();
+            args.add(new Object[]{
+                    batch.get(i).id(), dto.getName(), dto.getEmail(), hashes.get(i), dto.getRole().name(), dto.getCareer(),
+                    dto.getDocumentType(), dto.getDocumentNumber(), dto.getInstitution(), dto.getStudentCode()
+            });
+        }
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_USER_SQL, args);
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingUser p = batch.get(i);
+            if (counts[i] == 0) {
+                run.fail(p.rowNumber(), "El correo electrónico '" + p.dto().getEmail() + "' ya está registrado.");
+                continue;
+            }
+            // SUCCESS_NO_INFO: el driver no informa filas, pero el lote no falló
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                run.progress.rowCreated();
+                run.rows.add(ImportRowResultDTO.builder().row(p.rowNumber()).status(ImportRowStatus.CREADO).build());
+                run.accounts.add(new UsersImportedEvent.NewAccount(p.dto().getName(), p.dto().getEmail(), p.rawPassword()));
+            }
+        }
+    }
+
+    // Un hash BCrypt por contraseña repartido entre los núcleos; el lote espera a que terminen todos
+    private List<String> hashPasswords(List<PendingUser> batch) {
+        List<Callable<String>> tasks = batch.stream()
+                .map(p -> (Callable<String>) () -> passwordEncoder.encode(p.rawPassword()))
+                .toList();
+        try {
+            List<String> hashes = new ArrayList<>(tasks.size());
+            for (Future<String> future : passwordHashExecutor.invokeAll(tasks)) {
+                hashes.add(future.get());
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("La carga masiva fue interrumpida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("No se pudieron cifrar las contraseñas: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Solo con la carga confirmada: un rollback no debe dejar correos de cuentas inexistentes
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsersImported(UsersImportedEvent event) {
+        for (UsersImportedEvent.NewAccount account : event.accounts()) {
+            try {
+                mailExecutor.execute(() -> userService.sendWelcomeEmail(
+                        account.name(), account.email(), account.temporaryPassword(), true));
+            } catch (RejectedExecutionException e) {
+                System.err.println("CRÍTICO: Cola de correos llena; no se enviará la bienvenida a " + account.email() + ".");
+            }
+        }
+    }
+
+    private String summary(ImportRun run) {
+        if (run.progress.getFailed() > 0) {
+            String primerError = run.rows.stream()
+                    .filter(r -> r.getStatus() == ImportRowStatus.ERROR)
+                    .findFirst()
+                    .map(r -> "Fila " + r.getRow() + ": " + r.getMessage())
+                    .orElse("Error desconocido");
+            return "Se cargaron " + run.progress.getCreated() + " usuarios. Fallaron " + run.progress.getFailed() + " (Ej: " + primerError + ")";
+        }
+        return "Carga masiva exitosa: " + run.progress.getCreated() + " usuarios creados; los correos de bienvenida se envían en segundo plano.";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -1,36 +1,41 @@
 package com.backend.IMonitoring.service;
 
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
 import com.backend.IMonitoring.dto.UserDTO;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
 import com.backend.IMonitoring.model.User;
 import com.backend.IMonitoring.model.Rol;
 import com.backend.IMonitoring.repository.UserRepository;
 import com.backend.IMonitoring.repository.ReservationRepository;
+import com.backend.IMonitoring.repository.ReservationSeriesRepository;
 import com.backend.IMonitoring.exceptions.UnauthorizedAccessException;
 import com.backend.IMonitoring.exceptions.ResourceNotFoundException;
 import com.backend.IMonitoring.exceptions.UserAlreadyExistsException;
 import com.backend.IMonitoring.exceptions.InvalidCredentialsException;
 import com.backend.IMonitoring.utils.CareerUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final ReservationRepository reservationRepository;
+    private final ReservationSeriesRepository reservationSeriesRepository;
+    private final DailyUsageRollupService dailyUsageRollupService;
+    private final ApplicationEventPublisher eventPublisher;
     private final EmailService emailService;
     private final AuditLogService auditLogService;
 
@@ -49,44 +54,14 @@ public class UserService {
 
     @Transactional
     public User createUser(UserDTO userDTO, User performingUser) {
-        if (performingUser != null) {
-            if (performingUser.getRole() == Rol.COORDINADOR) {
-                if (userDTO.getRole() != Rol.ESTUDIANTE && userDTO.getRole() != Rol.PROFESOR && userDTO.getRole() != Rol.TUTOR) {
-                    throw new UnauthorizedAccessException("Los Coordinadores solo pueden crear cuentas de Estudiante, Profesor o Tutor.");
-                }
-                if (performingUser.getCareer() == null) {
-                    throw new UnauthorizedAccessException("Tu cuenta de Coordinador no tiene una carrera asignada.");
-                }
-                if (userDTO.getCareer() == null || userDTO.getCareer().isEmpty()) {
-                    userDTO.setCareer(performingUser.getCareer());
-                } else {
-                    if (!CareerUtils.areSameCareerGroup(performingUser.getCareer(), userDTO.getCareer())) {
-                        throw new UnauthorizedAccessException("No puedes asignar la carrera '" + userDTO.getCareer() + "' porque no pertenece a tu grupo académico.");
-                    }
-                }
-            }
-            else if (performingUser.getRole() == Rol.ADMIN) {
-                if (userDTO.getRole() == Rol.COORDINADOR && (userDTO.getCareer() == null || userDTO.getCareer().isEmpty())) {
-                    throw new IllegalArgumentException("Al crear un Coordinador, debes asignarle una carrera.");
-                }
-            }
-            else {
-                throw new UnauthorizedAccessException("No tienes permiso para crear usuarios.");
-            }
-        }
+        checkCreationPermission(userDTO, performingUser);
 
         String rawPassword = userDTO.getPassword();
         boolean autoGenerated = false;
 
         if (rawPassword == null || rawPassword.trim().isEmpty()) {
-            if (userDTO.getEmail() != null && userDTO.getEmail().contains("@")) {
-                String baseName = userDTO.getEmail().split("@")[0].toLowerCase();
-                int currentYearTwoDigits = java.time.Year.now().getValue() % 100;
-                rawPassword = baseName + currentYearTwoDigits;
-                autoGenerated = true;
-            } else {
-                throw new IllegalArgumentException("Correo inválido para generar contraseña.");
-            }
+            rawPassword = defaultPassword(userDTO.getEmail());
+            autoGenerated = true;
         }
 
         User user = userDTO.toEntity();
@@ -102,6 +77,44 @@ public class UserService {
         return createUserEntityLogic(user, rawPassword, autoGenerated, performingUser);
     }
 
+    // Reglas de quién puede crear qué cuenta; también completa la carrera por defecto del coordinador
+    public void checkCreationPermission(UserDTO userDTO, User performingUser) {
+        if (performingUser == null) return;
+        if (performingUser.getRole() == Rol.COORDINADOR) {
+            if (userDTO.getRole() != Rol.ESTUDIANTE && userDTO.getRole() != Rol.PROFESOR && userDTO.getRole() != Rol.TUTOR) {
+                throw new UnauthorizedAccessException("Los Coordinadores solo pueden crear cuentas de Estudiante, Profesor o Tutor.");
+            }
+            if (performingUser.getCareer() == null) {
+                throw new UnauthorizedAccessException("Tu cuenta de Coordinador no tiene una carrera asignada.");
+            }
+            if (userDTO.getCareer() == null || userDTO.getCareer().isEmpty()) {
+                userDTO.setCareer(performingUser.getCareer());
+            } else {
+                if (!CareerUtils.areSameCareerGroup(performingUser.getCareer(), userDTO.getCareer())) {
+                    throw new UnauthorizedAccessException("No puedes asignar la carrera '" + userDTO.getCareer() + "' porque no pertenece a tu grupo académico.");
+                }
+            }
+        }
+        else if (performingUser.getRole() == Rol.ADMIN) {
+            if (userDTO.getRole() == Rol.COORDINADOR && (userDTO.getCareer() == null || userDTO.getCareer().isEmpty())) {
+                throw new IllegalArgumentException("Al crear un Coordinador, debes asignarle una carrera.");
+            }
+        }
+        else {
+            throw new UnauthorizedAccessException("No tienes permiso para crear usuarios.");
+        }
+    }
+
+    // Contraseña temporal: parte local del correo + dos dígitos del año
+    public String defaultPassword(String email) {
+        if (email != null && email.contains("@")) {
+            String baseName = email.split("@")[0].toLowerCase();
+            int currentYearTwoDigits = java.time.Year.now().getValue() % 100;
+            return baseName + currentYearTwoDigits;
+        }
+        throw new IllegalArgumentException("Correo inválido para generar contraseña.");
+    }
+
     @Transactional
     protected User createUserEntityLogic(User user, String rawPassword, boolean isAutoGenerated, User performingUser) {
         if (userRepository.findByEmail(user.getEmail()).isPresent()) {
@@ -114,31 +127,36 @@ public class UserService {
 
         user.setEnabled(true);
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserDataChangedEvent(savedUser.getId()));
+        sendWelcomeEmail(savedUser.getName(), savedUser.getEmail(), rawPassword, isAutoGenerated);
+
+        String actor = performingUser != null ? performingUser.getEmail() : "Sistema Automático";
+        auditLogService.logAction(
+                "USUARIO_CREADO",
+                actor,
+                "Se creó el usuario: " + savedUser.getEmail() + " con el rol de " + savedUser.getRole()
+        );
+
+        return savedUser;
+    }
+
+    public void sendWelcomeEmail(String name, String email, String rawPassword, boolean isAutoGenerated) {
         try {
             String subject = "Bienvenido a AulaMonitor - Su cuenta ha sido creada";
             String passwordText = isAutoGenerated ? "Contraseña temporal: " + rawPassword : "La contraseña que introdujo durante el registro.";
 
-            String body = "Hola " + savedUser.getName() + ",\n\n" +
+            String body = "Hola " + name + ",\n\n" +
                     "Su cuenta en la plataforma AulaMonitor ha sido creada exitosamente.\n\n" +
                     "Sus credenciales de acceso son las siguientes:\n" +
-                    "Usuario: " + savedUser.getEmail() + "\n" +
+                    "Usuario: " + email + "\n" +
                     passwordText + "\n\n" +
                     "Le recomendamos que inicie sesión y cambie su contraseña lo antes posible.\n\n" +
                     "Saludos,\nEl equipo de AulaMonitor.";
 
-            emailService.sendEmail(savedUser.getEmail(), subject, body);
+            emailService.sendEmail(email, subject, body);
         } catch (Exception e) {
-            System.err.println("CRÍTICO: No se pudo enviar el correo de bienvenida a " + savedUser.getEmail() + ". Error: " + e.getMessage());
+            System.err.println("CRÍTICO: No se pudo enviar el correo de bienvenida a " + email + ". Error: " + e.getMessage());
         }
-
-        String actor = performingUser != null ? performingUser.getEmail() : "Sistema Automático";
-        auditLogService.logAction(
-                "USUARIO_CREADO",
-                actor,
-                "Se creó el usuario: " + savedUser.getEmail() + " con el rol de " + savedUser.getRole()
-        );
-
-        return savedUser;
     }
 
     @Transactional
@@ -216,7 +234,10 @@ public class UserService {
             if (isPerformingAdmin || (isPerformingCoordinator && !isSelf)) {
                 existingUser.setEnabled(userDTO.getEnabled());
                 if (!userDTO.getEnabled()) {
+                    List<ClassroomUsageSpan> touchedSpans = dailyUsageRollupService.spansForUser(existingUser.getId());
                     reservationRepository.deleteAllByUserId(existingUser.getId());
+                    reservationSeriesRepository.deleteOrphanSeries();
+                    dailyUsageRollupService.refreshSpans(touchedSpans);
                 }
             } else if (isSelf) {
                 throw new UnauthorizedAccessException("No puedes deshabilitar tu propia cuenta.");
@@ -226,6 +247,7 @@ public class UserService {
         }
 
         User savedUser = userRepository.save(existingUser);
+        eventPublisher.publishEvent(new UserDataChangedEvent(savedUser.getId()));
 
         auditLogService.logAction(
                 "USUARIO_ACTUALIZADO",
@@ -334,8 +356,12 @@ public class UserService {
 
         String deletedEmail = userToDelete.getEmail();
 
+        List<ClassroomUsageSpan> touchedSpans = dailyUsageRollupService.spansForUser(id);
         reservationRepository.deleteAllByUserId(id);
+        reservationSeriesRepository.deleteOrphanSeries();
+        dailyUsageRollupService.refreshSpans(touchedSpans);
         userRepository.delete(userToDelete);
+        eventPublisher.publishEvent(new UserDataChangedEvent(id));
 
         auditLogService.logAction(
                 "USUARIO_ELIMINADO",
@@ -343,62 +369,4 @@ public class UserService {
                 "Se eliminó permanentemente de la base de datos la cuenta: " + deletedEmail
         );
     }
-
-    @Transactional
-    public String uploadUsersFromExcel(MultipartFile file, User performingUser) throws IOException {
-        int successCount = 0;
-        int errorCount = 0;
-        List<String> errors = new ArrayList<>();
-        DataFormatter formatter = new DataFormatter();
-
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0) continue;
-
-                try {
-                    String name = row.getCell(0) != null ? formatter.formatCellValue(row.getCell(0)).trim() : "";
-                    String email = row.getCell(1) != null ? formatter.formatCellValue(row.getCell(1)).trim() : "";
-                    String roleStr = row.getCell(2) != null ? formatter.formatCellValue(row.getCell(2)).trim() : "";
-
-                    String documentType = row.getCell(3) != null ? formatter.formatCellValue(row.getCell(3)).trim() : "";
-                    String documentNumber = row.getCell(4) != null ? formatter.formatCellValue(row.getCell(4)).trim() : "";
-                    String institution = row.getCell(5) != null ? formatter.formatCellValue(row.getCell(5)).trim() : "";
-                    String career = row.getCell(6) != null ? formatter.formatCellValue(row.getCell(6)).trim() : "";
-                    String studentCode = row.getCell(7) != null ? formatter.formatCellValue(row.getCell(7)).trim() : "";
-
-                    if (name.isEmpty() || email.isEmpty() || roleStr.isEmpty()) continue;
-
-                    UserDTO dto = new UserDTO();
-                    dto.setName(name);
-                    dto.setEmail(email);
-                    dto.setRole(Rol.valueOf(roleStr.toUpperCase()));
-                    dto.setDocumentType(documentType.isEmpty() ? null : documentType);
-                    dto.setDocumentNumber(documentNumber.isEmpty() ? null : documentNumber);
-                    dto.setInstitution(institution.isEmpty() ? null : institution);
-                    dto.setCareer(career.isEmpty() ? null : career);
-                    dto.setStudentCode(studentCode.isEmpty() ? null : studentCode);
-
-                    createUser(dto, performingUser);
-                    successCount++;
-                } catch (Exception e) {
-                    errorCount++;
-                    errors.add("Fila " + (row.getRowNum() + 1) + ": " + e.getMessage());
-                }
-            }
-        }
-
-        auditLogService.logAction(
-                "CARGA_MASIVA_USUARIOS",
-                performingUser.getEmail(),
-                "Se ejecutó una carga masiva. Éxitos: " + successCount + " | Errores: " + errorCount
-        );
-
-        if (errorCount > 0) {
-            String primerError = errors.isEmpty() ? "Error desconocido" : errors.get(0);
-            return "Se cargaron " + successCount + " usuarios. Fallaron " + errorCount + " (Ej: " + primerError + ")";
-        }
-        return "Carga masiva exitosa: " + successCount + " usuarios creados y notificados por correo.";
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.backend.IMonitoring.utils;
+
+// Campos CSV para archivos que se abren en una hoja de cálculo
+public class CsvUtils {
+
+    // Comillas solo si hace falta; prefijo ' para que una hoja de cálculo no lo interprete como fórmula
+    public static String field(String value) {
+        if (value == null) return "";
+        String safe = (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) ? "'" + value : value;
+        if (safe.contains(",") || safe.contains("\"") || safe.contains("\n") || safe.contains("\r")) {
+            return "\"" + safe.replace("\"", "\"\"") + "\"";
+        }
+        return safe;
+    }
+}
@@ -0,0 +1,184 @@
+package com.backend.IMonitoring.utils;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Lectura en streaming de la primera hoja de un .xlsx (modelo de eventos SAX de POI).
+// Se lee desde un temporal (ver copyToTempFile); un hilo virtual lo recorre y deja las filas en una cola acotada
+// que consume quien itera, así la memoria no depende del tamaño de la hoja.
+public final class ExcelRowStream implements Iterable<ExcelRowStream.ExcelRow>, AutoCloseable {
+
+    // Filas leídas y aún no procesadas; si el consumidor va más lento, el lector espera
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final Object END = new Object();
+
+    // Número de fila como lo ve el usuario en Excel (la cabecera es la 1)
+    public record ExcelRow(int rowNumber, String[] cells) {
+        public String cell(int column) {
+            String value = column < cells.length ? cells[column] : null;
+            return value != null ? value.trim() : "";
+        }
+
+        public boolean isBlank() {
+            for (String value : cells) {
+                if (value != null && !value.isBlank()) return false;
+            }
+            return true;
+        }
+    }
+
+    private final Path tempFile;
+    private final int columnCount;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread reader;
+    private boolean iterated;
+
+    private ExcelRowStream(Path tempFile, int columnCount) {
+        this.tempFile = tempFile;
+        this.columnCount = columnCount;
+        this.reader = Thread.ofVirtual().name("excel-row-reader").start(this::parse);
+    }
+
+    // Copia la subida a un temporal propio: el archivo del multipart desaparece al terminar la petición
+    public static Path copyToTempFile(MultipartFile file) throws IOException {
+        Path tempFile = Files.createTempFile("import-", ".xlsx");
+        try {
+            file.transferTo(tempFile);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return tempFile;
+    }
+
+    // El flujo se queda con el temporal y lo borra al cerrarse
+    public static ExcelRowStream open(Path tempFile, int columnCount) {
+        return new ExcelRowStream(tempFile, columnCount);
+    }
+
+    // Solo se puede recorrer una vez: las filas se consumen de la cola
+    @Override
+    public Iterator<ExcelRow> iterator() {
+        if (iterated) throw new IllegalStateException("Las filas del archivo ya fueron recorridas.");
+        iterated = true;
+        return new Iterator<>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = queue.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Lectura del archivo interrumpida.", e);
+                    }
+                }
+                if (next instanceof Exception e) {
+                    next = END;
+                    throw new UncheckedIOException(new IOException("No se pudo leer el archivo Excel: " + e.getMessage(), e));
+                }
+                return next != END;
+            }
+
+            @Override
+            public ExcelRow next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                ExcelRow row = (ExcelRow) next;
+                next = null;
+                return row;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.interrupt();
+        try {
+            // Libera al lector si está bloqueado en una cola llena
+            queue.clear();
+            reader.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void parse() {
+        try (OPCPackage pkg = OPCPackage.open(tempFile.toFile(), PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = xssfReader.getStylesTable();
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, new RowCollector(), new DataFormatter(), false));
+                    parser.parse(new InputSource(sheet));
+                }
+            }
+            queue.put(END);
+        } catch (StopReading | InterruptedException e) {
+            // close() antes de terminar: no queda nadie leyendo la cola
+        } catch (Exception e) {
+            queue.clear();
+            queue.offer(e);
+        }
+    }
+
+    private static final class StopReading extends RuntimeException {
+        StopReading() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private String[] cells;
+        private int nextColumn;
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new String[columnCount];
+            nextColumn = 0;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            try {
+                queue.put(new ExcelRow(rowNum + 1, cells));
+            } catch (InterruptedException e) {
+                throw new StopReading();
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            nextColumn = column + 1;
+            if (column < columnCount) cells[column] = formattedValue;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.backend.IMonitoring;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+// PostgreSQL embebido para @DataJpaTest de consultas que usan SQL propio de PostgreSQL.
+// Se usa con @AutoConfigureTestDatabase(replace = NONE) y spring.jpa.hibernate.ddl-auto=create.
+@TestConfiguration
+public class EmbeddedPostgresTestConfig {
+
+    @Bean
+    EmbeddedPostgres embeddedPostgres() throws IOException {
+        return EmbeddedPostgres.start();
+    }
+
+    @Bean
+    DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+        return embeddedPostgres.getPostgresDatabase();
+    }
+}
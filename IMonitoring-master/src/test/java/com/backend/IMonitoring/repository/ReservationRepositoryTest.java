@@ -0,0 +1,221 @@
+package com.backend.IMonitoring.repository;
+
+import com.backend.IMonitoring.EmbeddedPostgresTestConfig;
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+import com.backend.IMonitoring.dto.RejectedReservationDTO;
+import com.backend.IMonitoring.dto.ReservationSnapshotRow;
+import com.backend.IMonitoring.dto.UsageLogDTO;
+import com.backend.IMonitoring.model.*;
+import com.backend.IMonitoring.utils.CursorUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(EmbeddedPostgresTestConfig.class)
+class ReservationRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 20, 12, 0);
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 3, 20, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    private Building building;
+    private Classroom classroom;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        building = entityManager.persist(Building.builder().name("Bloque A").build());
+        classroom = entityManager.persist(Classroom.builder()
+                .name("A-101").capacity(30).type(ClassroomType.AULA).isUnderMaintenance(false).building(building).build());
+        user = new User();
+        user.setName("Docente");
+        user.setEmail("docente@test.com");
+        user.setPassword("x");
+        user.setRole(Rol.PROFESOR);
+        user.setEnabled(true);
+        user = entityManager.persist(user);
+    }
+
+    @Test
+    void usageLogKeysetPagesVisitEveryRowOnceEvenWithTiedStartTimes() {
+        List<Reservation> expected = new ArrayList<>();
+        // Tres reservas con la misma hora de inicio: el desempate por id no debe perder ni repetir filas
+        for (int i = 0; i < 3; i++) {
+            expected.add(reserve(LocalDateTime.of(2025, 3, 10, 8, 0), ReservationStatus.CONFIRMADA));
+        }
+        expected.add(reserve(LocalDateTime.of(2025, 3, 11, 8, 0), ReservationStatus.CONFIRMADA));
+        expected.add(reserve(LocalDateTime.of(2025, 3, 5, 14, 0), ReservationStatus.CONFIRMADA));
+        expected.add(reserve(LocalDateTime.of(2025, 3, 2, 7, 0), ReservationStatus.CONFIRMADA));
+        // Fuera de la bitácora: pendiente y fuera de la ventana
+        reserve(LocalDateTime.of(2025, 3, 12, 8, 0), ReservationStatus.PENDIENTE);
+        reserve(LocalDateTime.of(2025, 2, 20, 8, 0), ReservationStatus.CONFIRMADA);
+        entityManager.flush();
+
+        List<String> visited = new ArrayList<>();
+        CursorUtils.Position position = null;
+        int pages = 0;
+        do {
+            // Igual que el servicio: una fila extra indica que hay página siguiente
+            List<UsageLogDTO> rows = reservationRepository.findUsageLogPage(NOW, FROM, TO, null, null, null, null,
+                    position != null ? position.startTime() : null, position != null ? position.id() : null, Limit.of(3));
+            List<UsageLogDTO> page = rows.subList(0, Math.min(rows.size(), 2));
+            page.forEach(row -> visited.add(row.getReservationId()));
+            UsageLogDTO last = page.get(page.size() - 1);
+            position = rows.size() > 2 ? CursorUtils.decode(CursorUtils.encode(last.getStartTime(), last.getReservationId())) : null;
+            pages++;
+        } while (position != null);
+
+        List<String> expectedOrder = expected.stream()
+                .sorted(Comparator.comparing(Reservation::getStartTime).thenComparing(Reservation::getId).reversed())
+                .map(Reservation::getId)
+                .toList();
+        assertThat(visited).containsExactlyElementsOf(expectedOrder);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void usageLogFiltersByRole() {
+        reserve(LocalDateTime.of(2025, 3, 10, 8, 0), ReservationStatus.CONFIRMADA);
+        entityManager.flush();
+
+        assertThat(reservationRepository.findUsageLogPage(NOW, FROM, TO, null, null, Rol.ESTUDIANTE, null, null, null, Limit.of(10)))
+                .isEmpty();
+        assertThat(reservationRepository.findUsageLogPage(NOW, FROM, TO, null, null, Rol.PROFESOR, null, null, null, Limit.of(10)))
+                .singleElement()
+                .satisfies(row -> {
+                    assertThat(row.getClassroomName()).isEqualTo("A-101");
+                    assertThat(row.getBuildingName()).isEqualTo("Bloque A");
+                    assertThat(row.getUserName()).isEqualTo("Docente");
+                });
+    }
+
+    @Test
+    void cancellationDetailKeysetPagesVisitEveryRowOnce() {
+        List<Reservation> expected = new ArrayList<>();
+        expected.add(reserve(LocalDateTime.of(2025, 3, 10, 8, 0), ReservationStatus.CANCELADA));
+        expected.add(reserve(LocalDateTime.of(2025, 3, 10, 8, 0), ReservationStatus.RECHAZADA));
+        expected.add(reserve(LocalDateTime.of(2025, 3, 4, 9, 0), ReservationStatus.CANCELADA));
+        reserve(LocalDateTime.of(2025, 3, 6, 9, 0), ReservationStatus.CONFIRMADA);
+        entityManager.flush();
+
+        List<ReservationStatus> statuses = List.of(ReservationStatus.CANCELADA, ReservationStatus.RECHAZADA);
+        List<RejectedReservationDTO> first = reservationRepository.findCancellationDetailPage(
+                statuses, FROM, TO, null, null, Limit.of(2));
+        RejectedReservationDTO last = first.get(1);
+        List<RejectedReservationDTO> second = reservationRepository.findCancellationDetailPage(
+                statuses, FROM, TO, last.getDate(), last.getReservationId(), Limit.of(2));
+
+        List<String> expectedOrder = expected.stream()
+                .sorted(Comparator.comparing(Reservation::getStartTime).thenComparing(Reservation::getId).reversed())
+                .map(Reservation::getId)
+                .toList();
+        assertThat(first).extracting(RejectedReservationDTO::getReservationId).containsExactlyElementsOf(expectedOrder.subList(0, 2));
+        assertThat(second).extracting(RejectedReservationDTO::getReservationId).containsExactly(expectedOrder.get(2));
+    }
+
+    @Test
+    void exportWindowWithoutEndIncludesEveryLaterConfirmedReservation() {
+        Reservation early = reserve(LocalDateTime.of(2025, 3, 2, 8, 0), ReservationStatus.CONFIRMADA);
+        Reservation late = reserve(LocalDateTime.of(2026, 1, 15, 8, 0), ReservationStatus.CONFIRMADA);
+        reserve(LocalDateTime.of(2025, 2, 1, 8, 0), ReservationStatus.CONFIRMADA);
+        reserve(LocalDateTime.of(2025, 3, 3, 8, 0), ReservationStatus.PENDIENTE);
+        entityManager.flush();
+
+        assertThat(reservationRepository.findConfirmedForExport(FROM, null, null))
+                .extracting(Reservation::getId)
+                .containsExactly(early.getId(), late.getId());
+        assertThat(reservationRepository.findConfirmedForExport(FROM, TO, null))
+                .extracting(Reservation::getId)
+                .containsExactly(early.getId());
+    }
+
+    @Test
+    void snapshotRowsUseTheReservationInstitutionBeforeTheUserOne() {
+        user.setInstitution("Universidad A");
+        Reservation own = reserve(LocalDateTime.of(2025, 3, 10, 8, 0), ReservationStatus.CONFIRMADA);
+        own.setInstitution("Colegio B");
+        Reservation blank = reserve(LocalDateTime.of(2025, 3, 11, 8, 0), ReservationStatus.CONFIRMADA);
+        blank.setInstitution("");
+        reserve(LocalDateTime.of(2025, 3, 12, 8, 0), ReservationStatus.CONFIRMADA);
+        entityManager.flush();
+
+        try (Stream<ReservationSnapshotRow> rows = reservationRepository.streamSnapshotRows()) {
+            assertThat(rows.sorted(Comparator.comparing(ReservationSnapshotRow::getStartTime)))
+                    .extracting(ReservationSnapshotRow::getInstitution)
+                    .containsExactly("Colegio B", "Universidad A", "Universidad A");
+        }
+    }
+
+    // Los filtros opcionales usan "(:param IS NULL OR ...)": se prueban con cada parámetro nulo y no nulo
+    @Test
+    void confirmedSpansFilterByOptionalBuildingAndType() {
+        Classroom lab = otherBuildingLab();
+        reserve(LocalDateTime.of(2025, 3, 10, 8, 0), ReservationStatus.CONFIRMADA);
+        reserve(lab, LocalDateTime.of(2025, 3, 11, 8, 0), ReservationStatus.CONFIRMADA);
+        reserve(lab, LocalDateTime.of(2025, 3, 12, 8, 0), ReservationStatus.PENDIENTE);
+        entityManager.flush();
+
+        assertThat(spanClassrooms(null, null)).containsExactlyInAnyOrder(classroom.getId(), lab.getId());
+        assertThat(spanClassrooms(building.getId(), null)).containsExactly(classroom.getId());
+        assertThat(spanClassrooms(null, ClassroomType.LABORATORIO)).containsExactly(lab.getId());
+        assertThat(spanClassrooms(building.getId(), ClassroomType.AULA)).containsExactly(classroom.getId());
+        assertThat(spanClassrooms(building.getId(), ClassroomType.LABORATORIO)).isEmpty();
+    }
+
+    @Test
+    void classroomCountFiltersByOptionalBuildingAndType() {
+        Classroom lab = otherBuildingLab();
+        entityManager.flush();
+
+        assertThat(classroomRepository.countByBuildingAndType(null, null)).isEqualTo(2);
+        assertThat(classroomRepository.countByBuildingAndType(building.getId(), null)).isEqualTo(1);
+        assertThat(classroomRepository.countByBuildingAndType(null, ClassroomType.LABORATORIO)).isEqualTo(1);
+        assertThat(classroomRepository.countByBuildingAndType(lab.getBuilding().getId(), ClassroomType.LABORATORIO)).isEqualTo(1);
+        assertThat(classroomRepository.countByBuildingAndType(building.getId(), ClassroomType.LABORATORIO)).isZero();
+    }
+
+    private List<String> spanClassrooms(String buildingId, ClassroomType type) {
+        try (Stream<ClassroomUsageSpan> spans = reservationRepository.streamConfirmedSpans(FROM, TO, buildingId, type)) {
+            return spans.map(ClassroomUsageSpan::getClassroomId).toList();
+        }
+    }
+
+    private Classroom otherBuildingLab() {
+        Building other = entityManager.persist(Building.builder().name("Bloque B").build());
+        return entityManager.persist(Classroom.builder()
+                .name("B-201").capacity(20).type(ClassroomType.LABORATORIO).isUnderMaintenance(false).building(other).build());
+    }
+
+    private Reservation reserve(LocalDateTime start, ReservationStatus status) {
+        return reserve(classroom, start, status);
+    }
+
+    private Reservation reserve(Classroom target, LocalDateTime start, ReservationStatus status) {
+        return entityManager.persist(Reservation.builder()
+                .classroom(target).user(user).startTime(start).endTime(start.plusHours(2)).purpose("Clase").status(status).build());
+    }
+}
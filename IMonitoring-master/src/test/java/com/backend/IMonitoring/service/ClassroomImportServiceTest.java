@@ -0,0 +1,197 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ClassroomImportKeyRow;
+import com.backend.IMonitoring.dto.ImportResultDTO;
+import com.backend.IMonitoring.dto.ImportRowResultDTO;
+import com.backend.IMonitoring.dto.ImportRowStatus;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
+import com.backend.IMonitoring.model.Building;
+import com.backend.IMonitoring.model.ClassroomType;
+import com.backend.IMonitoring.repository.BuildingRepository;
+import com.backend.IMonitoring.repository.ClassroomRepository;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClassroomImportServiceTest {
+
+    @Mock
+    private ClassroomRepository classroomRepository;
+
+    @Mock
+    private BuildingRepository buildingRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path tempDir;
+
+    private ClassroomImportService importService;
+
+    // Lotes enviados a JDBC; se copian porque el servicio reutiliza la lista después de cada lote
+    private final List<Object[]> inserted = new ArrayList<>();
+    private final List<Object[]> updated = new ArrayList<>();
+
+    private record ExistingClassroom(String getId, String getBuildingId, String getName, Integer getCapacity,
+                                     ClassroomType getType) implements ClassroomImportKeyRow {
+    }
+
+    @BeforeEach
+    void setUp() {
+        importService = new ClassroomImportService(classroomRepository, buildingRepository, jdbcTemplate, eventPublisher);
+        when(buildingRepository.findAll()).thenReturn(List.of(
+                Building.builder().id("b1").name("Bloque A").build(),
+                Building.builder().id("b2").name("Bloque B").build()));
+        when(classroomRepository.findAllImportKeys()).thenReturn(List.of(
+                new ExistingClassroom("c1", "b1", "A-101", 30, ClassroomType.AULA),
+                new ExistingClassroom("c2", "b1", "A-102", 20, ClassroomType.AULA)));
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> args = invocation.getArgument(1);
+            (sql.startsWith("INSERT") ? inserted : updated).addAll(args);
+            return new int[args.size()];
+        });
+    }
+
+    @Test
+    void classifiesRowsAsCreatedUpdatedAndUnchanged() throws IOException {
+        Path file = workbook(
+                new String[]{"A-101", "30", "aula", " bloque a "},
+                new String[]{"A-102", "25", "LABORATORIO", "Bloque A"},
+                new String[]{"A-103", "40", "AULA", "Bloque A"},
+                // Mismo nombre en otro edificio: es otra aula
+                new String[]{"A-101", "15", "AULA", "Bloque B"});
+
+        ImportResultDTO result = importService.importClassrooms(file, new ImportProgress());
+
+        assertThat(statusByRow(result)).containsExactly(
+                Map.entry(2, ImportRowStatus.SIN_CAMBIOS),
+                Map.entry(3, ImportRowStatus.ACTUALIZADO),
+                Map.entry(4, ImportRowStatus.CREADO),
+                Map.entry(5, ImportRowStatus.CREADO));
+        assertThat(result.getRowsRead()).isEqualTo(4);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        assertThat(result.getFailed()).isZero();
+
+        assertThat(updated).containsExactly(new Object[]{25, "LABORATORIO", "c2"});
+        assertThat(inserted).hasSize(2);
+        assertThat(inserted.get(0)).containsSubsequence("A-103", 40, "AULA", "b1");
+        assertThat(inserted.get(1)).containsSubsequence("A-101", 15, "AULA", "b2");
+        verify(eventPublisher).publishEvent(any(ClassroomDataChangedEvent.class));
+        assertThat(Files.exists(file)).isFalse();
+    }
+
+    @Test
+    void reimportingTheSameInventoryChangesNothing() throws IOException {
+        Path file = workbook(
+                new String[]{"A-101", "30", "AULA", "Bloque A"},
+                new String[]{"a-102", "20", "AULA", "Bloque A"});
+
+        ImportResultDTO result = importService.importClassrooms(file, new ImportProgress());
+
+        assertThat(result.getUnchanged()).isEqualTo(2);
+        assertThat(result.getCreated() + result.getUpdated() + result.getFailed()).isZero();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void repeatedKeyInTheFileIsReportedAndOnlyTheFirstRowApplies() throws IOException {
+        Path file = workbook(
+                new String[]{"A-104", "35", "AULA", "Bloque A"},
+                new String[]{" a-104", "50", "AUDITORIO", "BLOQUE A"},
+                new String[]{"A-102", "22", "AULA", "Bloque A"},
+                new String[]{"A-102", "24", "AULA", "Bloque A"});
+
+        ImportResultDTO result = importService.importClassrooms(file, new ImportProgress());
+
+        assertThat(statusByRow(result)).containsExactly(
+                Map.entry(2, ImportRowStatus.CREADO),
+                Map.entry(3, ImportRowStatus.ERROR),
+                Map.entry(4, ImportRowStatus.ACTUALIZADO),
+                Map.entry(5, ImportRowStatus.ERROR));
+        assertThat(result.getRows().get(1).getMessage()).contains("está repetida en el archivo");
+        assertThat(result.getRows().get(3).getMessage()).contains("está repetida en el archivo");
+        assertThat(inserted).hasSize(1);
+        assertThat(updated).containsExactly(new Object[]{22, "AULA", "c2"});
+        assertThat(result.getMessage()).contains("Fallaron 2");
+    }
+
+    @Test
+    void invalidRowsAreReportedWithoutStoppingTheImport() throws IOException {
+        Path file = workbook(
+                new String[]{"Z-1", "10", "AULA", "Bloque Z"},
+                new String[]{"A-105", "0", "AULA", "Bloque A"},
+                new String[]{"A-106", "diez", "AULA", "Bloque A"},
+                new String[]{"A-107", "10", "PISCINA", "Bloque A"},
+                new String[]{"A-108", "10", "AULA", "Bloque A"});
+
+        ImportResultDTO result = importService.importClassrooms(file, new ImportProgress());
+
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getRows()).extracting(ImportRowResultDTO::getMessage).first().asString()
+                .contains("no existe");
+        assertThat(inserted).hasSize(1);
+    }
+
+    private static Map<Integer, ImportRowStatus> statusByRow(ImportResultDTO result) {
+        return result.getRows().stream().collect(Collectors.toMap(
+                ImportRowResultDTO::getRow, ImportRowResultDTO::getStatus, (a, b) -> b, LinkedHashMap::new));
+    }
+
+    // Plantilla de carga: encabezado y una fila por aula (nombre, capacidad, tipo, edificio)
+    private Path workbook(String[]... rows) throws IOException {
+        Path file = Files.createTempFile(tempDir, "aulas", ".xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Aulas");
+            Row header = sheet.createRow(0);
+            String[] titles = {"Nombre", "Capacidad", "Tipo", "Edificio"};
+            for (int i = 0; i < titles.length; i++) header.createCell(i).setCellValue(titles[i]);
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(r + 1);
+                for (int c = 0; c < rows[r].length; c++) {
+                    // La capacidad va como número, igual que en la plantilla real
+                    if (c == 1 && rows[r][c].matches("\\d+")) {
+                        row.createCell(c).setCellValue(Integer.parseInt(rows[r][c]));
+                    } else {
+                        row.createCell(c).setCellValue(rows[r][c]);
+                    }
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+}
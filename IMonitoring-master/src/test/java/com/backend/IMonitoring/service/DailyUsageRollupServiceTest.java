@@ -0,0 +1,119 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.EmbeddedPostgresTestConfig;
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+import com.backend.IMonitoring.model.*;
+import com.backend.IMonitoring.repository.ClassroomDailyUsageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Las consultas del acumulado son SQL nativo de PostgreSQL (generate_series, ON CONFLICT, candados consultivos):
+// se prueban contra un PostgreSQL embebido y no contra H2.
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DailyUsageRollupService.class, EmbeddedPostgresTestConfig.class})
+class DailyUsageRollupServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DailyUsageRollupService rollupService;
+
+    @Autowired
+    private ClassroomDailyUsageRepository dailyUsageRepository;
+
+    private Classroom classroom;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        Building building = entityManager.persist(Building.builder().name("Bloque A").build());
+        classroom = entityManager.persist(Classroom.builder()
+                .name("A-101").capacity(30).type(ClassroomType.AULA).isUnderMaintenance(false).building(building).build());
+        user = new User();
+        user.setName("Docente");
+        user.setEmail("docente@test.com");
+        user.setPassword("x");
+        user.setRole(Rol.PROFESOR);
+        user.setEnabled(true);
+        user = entityManager.persist(user);
+    }
+
+    @Test
+    void reservationCrossingMidnightIsSplitBetweenBothDays() {
+        Reservation reservation = reserve(LocalDateTime.of(2025, 3, 10, 22, 0), LocalDateTime.of(2025, 3, 11, 2, 0),
+                ReservationStatus.CONFIRMADA);
+
+        rollupService.refreshReservations(List.of(reservation));
+
+        List<ClassroomDailyUsage> rows = usageRows();
+        assertThat(rows).hasSize(2);
+        assertRow(rows.get(0), LocalDate.of(2025, 3, 10), ReservationStatus.CONFIRMADA, 1, 120);
+        assertRow(rows.get(1), LocalDate.of(2025, 3, 11), ReservationStatus.CONFIRMADA, 1, 120);
+    }
+
+    @Test
+    void recomputeOverwritesExistingKeysAndRemovesStaleOnes() {
+        Reservation reservation = reserve(LocalDateTime.of(2025, 3, 10, 22, 0), LocalDateTime.of(2025, 3, 11, 2, 0),
+                ReservationStatus.PENDIENTE);
+        rollupService.refreshReservations(List.of(reservation));
+
+        // Se confirma y se acorta al primer día: la clave PENDIENTE desaparece y el segundo día queda vacío
+        reservation.setStatus(ReservationStatus.CONFIRMADA);
+        reservation.setEndTime(LocalDateTime.of(2025, 3, 10, 23, 30));
+        rollupService.refreshSpans(List.of(new ClassroomUsageSpan(
+                classroom.getId(), LocalDateTime.of(2025, 3, 10, 22, 0), LocalDateTime.of(2025, 3, 11, 2, 0))));
+
+        List<ClassroomDailyUsage> rows = usageRows();
+        assertThat(rows).hasSize(1);
+        assertRow(rows.get(0), LocalDate.of(2025, 3, 10), ReservationStatus.CONFIRMADA, 1, 90);
+    }
+
+    @Test
+    void backfillBuildsAnEmptyRollupFromHistory() {
+        reserve(LocalDateTime.of(2025, 3, 10, 8, 0), LocalDateTime.of(2025, 3, 10, 10, 0), ReservationStatus.CONFIRMADA);
+        reserve(LocalDateTime.of(2025, 3, 10, 10, 0), LocalDateTime.of(2025, 3, 10, 11, 0), ReservationStatus.CONFIRMADA);
+        entityManager.flush();
+
+        rollupService.backfillIfEmpty();
+
+        List<ClassroomDailyUsage> rows = usageRows();
+        assertThat(rows).hasSize(1);
+        assertRow(rows.get(0), LocalDate.of(2025, 3, 10), ReservationStatus.CONFIRMADA, 2, 180);
+        assertThat(rows.get(0).getDistinctUsers()).isEqualTo(1);
+    }
+
+    private Reservation reserve(LocalDateTime start, LocalDateTime end, ReservationStatus status) {
+        return entityManager.persist(Reservation.builder()
+                .classroom(classroom).user(user).startTime(start).endTime(end).purpose("Clase").status(status).build());
+    }
+
+    // Las consultas nativas no pasan por la sesión: se descarta lo cacheado antes de leer
+    private List<ClassroomDailyUsage> usageRows() {
+        entityManager.clear();
+        return dailyUsageRepository.findAll().stream()
+                .sorted(Comparator.comparing((ClassroomDailyUsage u) -> u.getId().getUsageDate()))
+                .toList();
+    }
+
+    private void assertRow(ClassroomDailyUsage row, LocalDate day, ReservationStatus status, long count, long minutes) {
+        assertThat(row.getId().getClassroomId()).isEqualTo(classroom.getId());
+        assertThat(row.getId().getUsageDate()).isEqualTo(day);
+        assertThat(row.getId().getStatus()).isEqualTo(status);
+        assertThat(row.getReservationCount()).isEqualTo(count);
+        assertThat(row.getBookedMinutes()).isEqualTo(minutes);
+    }
+}
@@ -0,0 +1,90 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+import com.backend.IMonitoring.events.ReservationDataChangedEvent;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
+import com.backend.IMonitoring.service.ReportCacheService.DataDomain;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportCacheServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 3, 31);
+
+    private ReportCacheService cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReportCacheService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntries", 200);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(10));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void secondRequestIsServedFromCache() {
+        load(() -> {});
+        load(() -> {});
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void reservationOutsideTheRangeDuringComputationKeepsTheResult() {
+        load(() -> cache.onReservationDataChanged(reservationOn(LocalDate.of(2025, 5, 10))));
+        load(() -> {});
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void unrelatedDomainChangeDuringComputationKeepsTheResult() {
+        load(() -> cache.onUserDataChanged(new UserDataChangedEvent("u-1")));
+        load(() -> {});
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void reservationInsideTheRangeDuringComputationDiscardsTheResult() {
+        load(() -> cache.onReservationDataChanged(reservationOn(LocalDate.of(2025, 3, 15))));
+        load(() -> {});
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void reservationInsideTheRangeAfterComputationEvictsTheEntry() {
+        load(() -> {});
+        cache.onReservationDataChanged(reservationOn(LocalDate.of(2025, 3, 15)));
+        load(() -> {});
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    // Simula una escritura concurrente ejecutándola mientras se calcula el reporte
+    private void load(Runnable duringComputation) {
+        cache.get("heatmap", List.of(FROM, TO), EnumSet.of(DataDomain.RESERVATIONS, DataDomain.CLASSROOMS), FROM, TO, () -> {
+            loads.incrementAndGet();
+            duringComputation.run();
+            return "resultado";
+        });
+    }
+
+    private static ReservationDataChangedEvent reservationOn(LocalDate day) {
+        return new ReservationDataChangedEvent(List.of(
+                new ClassroomUsageSpan("c-1", day.atTime(8, 0), day.atTime(10, 0))));
+    }
+}
@@ -0,0 +1,155 @@
+package com.backend.IMonitoring.service;
+
+import com.backend.IMonitoring.dto.ClassroomUsageSpan;
+import com.backend.IMonitoring.dto.FeedVersionRow;
+import com.backend.IMonitoring.events.ClassroomDataChangedEvent;
+import com.backend.IMonitoring.events.ReservationDataChangedEvent;
+import com.backend.IMonitoring.events.UserDataChangedEvent;
+import com.backend.IMonitoring.repository.BuildingRepository;
+import com.backend.IMonitoring.repository.ClassroomRepository;
+import com.backend.IMonitoring.repository.ReservationRepository;
+import com.backend.IMonitoring.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScheduleFeedServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 4, 1, 0, 0);
+    private static final ScheduleFeedService.FeedRequest CLASSROOM_FEED =
+            new ScheduleFeedService.FeedRequest(ScheduleFeedService.FeedScope.CLASSROOM, "c1", "A-101", FROM, TO);
+    private static final ScheduleFeedService.FeedRequest USER_FEED =
+            new ScheduleFeedService.FeedRequest(ScheduleFeedService.FeedScope.USER, "u1", "Docente", FROM, TO);
+
+    @Test
+    void eTagIsStableWhileNothingChanges() {
+        ScheduleFeedService service = serviceWithUnchangedReservations();
+
+        assertThat(eTag(service, CLASSROOM_FEED)).isEqualTo(eTag(service, CLASSROOM_FEED));
+    }
+
+    @Test
+    void classroomRenameChangesTheETagAndLastModified() {
+        ScheduleFeedService service = serviceWithUnchangedReservations();
+        ScheduleFeedService.FeedVersion before = service.version(CLASSROOM_FEED, ScheduleFeedService.FeedFormat.ICS);
+
+        // Renombrar un aula no toca updatedAt ni la cantidad de reservas
+        service.onClassroomDataChanged(new ClassroomDataChangedEvent("c1"));
+
+        ScheduleFeedService.FeedVersion after = service.version(CLASSROOM_FEED, ScheduleFeedService.FeedFormat.ICS);
+        assertThat(after.eTag()).isNotEqualTo(before.eTag());
+        assertThat(after.lastModified()).isAfter(before.lastModified());
+    }
+
+    @Test
+    void userOrBuildingChangesInvalidateEveryFeed() {
+        ScheduleFeedService service = serviceWithUnchangedReservations();
+        String classroomBefore = eTag(service, CLASSROOM_FEED);
+        String userBefore = eTag(service, USER_FEED);
+
+        service.onUserDataChanged(new UserDataChangedEvent("u1"));
+
+        assertThat(eTag(service, CLASSROOM_FEED)).isNotEqualTo(classroomBefore);
+        assertThat(eTag(service, USER_FEED)).isNotEqualTo(userBefore);
+    }
+
+    @Test
+    void reservationChangeInAnotherClassroomKeepsTheClassroomETag() {
+        ScheduleFeedService service = serviceWithUnchangedReservations();
+        String before = eTag(service, CLASSROOM_FEED);
+
+        service.onReservationDataChanged(new ReservationDataChangedEvent(List.of(
+                new ClassroomUsageSpan("c2", FROM, FROM.plusHours(2)))));
+
+        assertThat(eTag(service, CLASSROOM_FEED)).isEqualTo(before);
+    }
+
+    @Test
+    void shortLineIsWrittenAsIsWithCrlf() throws IOException {
+        assertThat(ics("BEGIN:VEVENT")).isEqualTo("BEGIN:VEVENT\r\n");
+    }
+
+    @Test
+    void lineOfExactly75OctetsIsNotFolded() throws IOException {
+        String line = "A".repeat(75);
+        assertThat(ics(line)).isEqualTo(line + "\r\n");
+    }
+
+    @Test
+    void longAsciiLineIsFoldedAt75OctetsWithLeadingSpace() throws IOException {
+        String line = "S".repeat(160);
+
+        String written = ics(line);
+
+        assertThat(written).isEqualTo("S".repeat(75) + "\r\n " + "S".repeat(74) + "\r\n " + "S".repeat(11) + "\r\n");
+        assertFolding(line, written);
+    }
+
+    @Test
+    void multibyteCharacterIsMovedToTheNextLineInsteadOfSplit() throws IOException {
+        // 74 octetos + "é" (2 octetos) superan el límite: la "é" abre la continuación
+        String line = "D".repeat(74) + "é" + "fin";
+
+        String written = ics(line);
+
+        assertThat(written).isEqualTo("D".repeat(74) + "\r\n é" + "fin" + "\r\n");
+        assertFolding(line, written);
+    }
+
+    @Test
+    void surrogatePairsAndAccentsFoldWithinTheOctetLimit() throws IOException {
+        String line = "SUMMARY:" + "Reunión de coordinación 📅 ".repeat(10);
+
+        assertFolding(line, ics(line));
+    }
+
+    @Test
+    void icsTextEscapesSpecialCharactersAndNewLines() {
+        assertThat(ScheduleFeedService.icsText("Sala 1, piso 2; ala \\ norte\r\nsegunda\nlínea\rfin"))
+                .isEqualTo("Sala 1\\, piso 2\\; ala \\\\ norte\\nsegunda\\nlínea\\nfin");
+        assertThat(ScheduleFeedService.icsText(null)).isEmpty();
+    }
+
+    // Las reservas del feed no cambian: misma cantidad y mismo updatedAt máximo en cada consulta
+    private static ScheduleFeedService serviceWithUnchangedReservations() {
+        ReservationRepository reservationRepository = mock(ReservationRepository.class);
+        FeedVersionRow row = new FeedVersionRow() {
+            public Long getTotal() { return 12L; }
+            public LocalDateTime getLastUpdated() { return LocalDateTime.of(2025, 2, 20, 9, 30); }
+        };
+        when(reservationRepository.findFeedVersion(any(), any(), any(), eq(FROM), eq(TO))).thenReturn(row);
+        return new ScheduleFeedService(reservationRepository, mock(ClassroomRepository.class),
+                mock(BuildingRepository.class), mock(UserRepository.class));
+    }
+
+    private static String eTag(ScheduleFeedService service, ScheduleFeedService.FeedRequest request) {
+        return service.version(request, ScheduleFeedService.FeedFormat.ICS).eTag();
+    }
+
+    private static String ics(String line) throws IOException {
+        StringWriter writer = new StringWriter();
+        ScheduleFeedService.writeIcsLine(writer, line);
+        return writer.toString();
+    }
+
+    // Cada línea física cabe en 75 octetos y al desplegarla (RFC 5545 §3.1) se recupera el texto original
+    private static void assertFolding(String original, String written) {
+        assertThat(written).endsWith("\r\n");
+        for (String physical : written.substring(0, written.length() - 2).split("\r\n", -1)) {
+            assertThat(physical.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(75);
+            assertThat(Character.isLowSurrogate(physical.charAt(physical.startsWith(" ") ? 1 : 0))).isFalse();
+        }
+        assertThat(written.replace("\r\n ", "")).isEqualTo(original + "\r\n");
+    }
+}
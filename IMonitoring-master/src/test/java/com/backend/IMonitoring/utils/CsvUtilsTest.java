@@ -0,0 +1,37 @@
+package com.backend.IMonitoring.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvUtilsTest {
+
+    @Test
+    void plainValueIsNotQuoted() {
+        assertThat(CsvUtils.field("Aula 101")).isEqualTo("Aula 101");
+        assertThat(CsvUtils.field("")).isEmpty();
+        assertThat(CsvUtils.field(null)).isEmpty();
+    }
+
+    @Test
+    void valueWithSeparatorQuoteOrLineBreakIsQuoted() {
+        assertThat(CsvUtils.field("Bloque A, piso 2")).isEqualTo("\"Bloque A, piso 2\"");
+        assertThat(CsvUtils.field("Sala \"Magna\"")).isEqualTo("\"Sala \"\"Magna\"\"\"");
+        assertThat(CsvUtils.field("línea 1\nlínea 2")).isEqualTo("\"línea 1\nlínea 2\"");
+        assertThat(CsvUtils.field("fin\r")).isEqualTo("\"fin\r\"");
+    }
+
+    @Test
+    void formulaPrefixesAreNeutralized() {
+        assertThat(CsvUtils.field("=SUM(A1:A2)")).isEqualTo("'=SUM(A1:A2)");
+        assertThat(CsvUtils.field("+57 300")).isEqualTo("'+57 300");
+        assertThat(CsvUtils.field("-1")).isEqualTo("'-1");
+        assertThat(CsvUtils.field("@usuario")).isEqualTo("'@usuario");
+    }
+
+    @Test
+    void neutralizedFormulaIsStillQuotedWhenNeeded() {
+        assertThat(CsvUtils.field("=HYPERLINK(\"http://x\",\"clic\")"))
+                .isEqualTo("\"'=HYPERLINK(\"\"http://x\"\",\"\"clic\"\")\"");
+    }
+}
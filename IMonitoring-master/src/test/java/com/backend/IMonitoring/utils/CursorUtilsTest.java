@@ -0,0 +1,50 @@
+package com.backend.IMonitoring.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilsTest {
+
+    @Test
+    void encodedPositionDecodesToTheSameValues() {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 10, 8, 0);
+        String cursor = CursorUtils.encode(start, "2f1c-uuid|con-barra");
+
+        assertThat(CursorUtils.decode(cursor)).isEqualTo(new CursorUtils.Position(start, "2f1c-uuid|con-barra"));
+    }
+
+    @Test
+    void fractionalSecondsSurviveTheRoundTrip() {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 10, 8, 15, 30, 123_456_000);
+
+        assertThat(CursorUtils.decode(CursorUtils.encode(start, "r1")).startTime()).isEqualTo(start);
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = CursorUtils.encode(LocalDateTime.of(2025, 12, 31, 23, 59, 59), "ñandú-??>>");
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void missingCursorMeansFirstPage() {
+        assertThat(CursorUtils.decode(null)).isNull();
+        assertThat(CursorUtils.decode("  ")).isNull();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> CursorUtils.decode("no es base64!"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor de paginación inválido.");
+        assertThatThrownBy(() -> CursorUtils.decode(CursorUtils.encode(LocalDateTime.now(), "x").substring(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorUtils.decode("c2luLXNlcGFyYWRvcg"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,23 @@
+export type ImportJobStatus = 'PENDIENTE' | 'EN_PROCESO' | 'COMPLETADO' | 'FALLIDO' | 'CANCELADO';
+
+// Carga masiva en segundo plano (GET /api/import-jobs/{jobId})
+export interface ImportJob {
+  jobId: string;
+  type: 'USUARIOS' | 'AULAS';
+  status: ImportJobStatus;
+  fileName: string;
+  submittedBy: string;
+  rowsRead: number;
+  inserted: number;
+  updated: number;
+  unchanged: number;
+  failed: number;
+  rowsPerSecond: number;
+  cancelRequested: boolean;
+  errorReportAvailable: boolean;
+  submittedAt: string;
+  startedAt?: string;
+  finishedAt?: string;
+  message?: string;
+  error?: string;
+}
@@ -7,7 +7,9 @@ import { Classroom } from '../../../models/classroom.model';
 import { AuthService } from '../../../services/auth.service';
 import { Rol } from '../../../models/rol.model';
 import { Subject } from 'rxjs';
-import { takeUntil, finalize } from 'rxjs/operators';
+import { takeUntil, finalize, switchMap, tap, last } from 'rxjs/operators';
+import { ImportJobService } from '../../../services/import-job.service';
+import { ImportJob } from '../../../models/import-job.model';
 
 @Component({
   selector: 'app-classroom-list',
@@ -26,6 +28,7 @@ export class ClassroomListPage implements OnInit, OnDestroy {
 
   constructor(
     private classroomService: ClassroomService,
+    private importJobService: ImportJobService,
     private authService: AuthService,
     private alertCtrl: AlertController,
     private loadingCtrl: LoadingController,
@@ -111,19 +114,25 @@ export class ClassroomListPage implements OnInit, OnDestroy {
       const loading = await this.loadingCtrl.create({ message: 'Procesando Excel de Aulas...' });
       await loading.present();
 
+      // La carga se procesa en segundo plano: se consulta el trabajo hasta que termina
       this.classroomService.uploadClassroomsExcel(file)
-        .pipe(takeUntil(this.destroy$))
+        .pipe(
+          switchMap((accepted: ImportJob) => this.importJobService.watchJob(accepted.jobId)),
+          tap(job => { loading.message = this.importJobService.progressMessage(job); }),
+          last(),
+          takeUntil(this.destroy$)
+        )
         .subscribe({
-          next: async (res) => {
+          next: async (job: ImportJob) => {
             await loading.dismiss();
-            await this.presentToast(res.message || 'Carga masiva exitosa', 'success');
-            this.loadClassrooms();
+            await this.importJobService.showResult(job, () => this.loadClassrooms(), 'errores_aulas');
           },
           error: async (err) => {
             await loading.dismiss();
-            await this.presentToast(err.error?.error || 'Error al subir el archivo Excel', 'danger');
+            await this.presentToast(err.error?.error || err.message || 'Error al subir el archivo Excel', 'danger');
           }
         });
+
       event.target.value = null;
     }
   }
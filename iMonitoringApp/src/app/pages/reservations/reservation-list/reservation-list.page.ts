@@ -2,7 +2,7 @@ import { Component, OnInit, OnDestroy, ChangeDetectorRef } from '@angular/core';
 import { CommonModule, DatePipe, TitleCasePipe } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { ActivatedRoute, Router, Params } from '@angular/router';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { environment } from '../../../../environments/environment';
 import { PdfService } from '../../../services/pdf.service';
 
@@ -19,8 +19,8 @@ import { Reservation, ReservationStatus } from '../../../models/reservation.mode
 import { AuthService } from '../../../services/auth.service';
 import { User } from '../../../models/user.model';
 import { Rol } from 'src/app/models/rol.model';
-import { Subject, Observable } from 'rxjs';
-import { takeUntil, finalize } from 'rxjs/operators';
+import { Subject, Observable, EMPTY } from 'rxjs';
+import { takeUntil, finalize, expand, reduce } from 'rxjs/operators';
 import { ClassroomService } from 'src/app/services/classroom.service';
 import { Classroom } from 'src/app/models/classroom.model';
 import { ClassroomType } from 'src/app/models/classroom-type.enum';
@@ -62,6 +62,8 @@ export interface ReservationViewItem {
 })
 export class ReservationListPage implements OnInit, OnDestroy {
   private destroy$ = new Subject<void>();
+  // Días hacia atrás que cubre el PDF de logs de auditoría
+  private readonly ADMIN_LOG_WINDOW_DAYS = 30;
 
   currentUser: User | null = null;
   userRole: Rol | null = null;
@@ -393,7 +395,25 @@ export class ReservationListPage implements OnInit, OnDestroy {
     const loading = await this.loadingCtrl.create({ message: 'Generando Reporte...' });
     await loading.present();
 
-    this.http.get<any[]>(`${environment.apiUrl}/reservations/logs`).subscribe({
+    // El endpoint pagina por cursor dentro de una ventana de fechas: se piden las páginas hasta agotar nextCursor
+    const to = new Date();
+    const from = new Date(to.getTime() - this.ADMIN_LOG_WINDOW_DAYS * 24 * 60 * 60 * 1000);
+    const fetchPage = (cursor: string | null) => {
+      let params = new HttpParams()
+        .set('from', from.toISOString())
+        .set('to', to.toISOString())
+        .set('size', '200');
+      if (cursor) {
+        params = params.set('cursor', cursor);
+      }
+      return this.http.get<{ items: any[]; nextCursor: string | null }>(`${environment.apiUrl}/reservations/logs`, { params });
+    };
+
+    fetchPage(null).pipe(
+      expand(page => page.nextCursor ? fetchPage(page.nextCursor) : EMPTY),
+      reduce((logs: any[], page) => logs.concat(page.items), [] as any[]),
+      takeUntil(this.destroy$)
+    ).subscribe({
       next: (logs) => {
         this.pdfService.exportAdminLogs(logs);
         loading.dismiss();
@@ -6,8 +6,10 @@ import { UserService } from '../../../services/user.service';
 import { User } from '../../../models/user.model';
 import { Rol } from '../../../models/rol.model';
 import { Subject, Observable, forkJoin, of } from 'rxjs';
-import { takeUntil, map, catchError, finalize } from 'rxjs/operators';
+import { takeUntil, map, catchError, finalize, switchMap, tap, last } from 'rxjs/operators';
 import { AuthService } from '../../../services/auth.service';
+import { ImportJobService } from '../../../services/import-job.service';
+import { ImportJob } from '../../../models/import-job.model';
 import { HttpClient } from '@angular/common/http';
 import { environment } from '../../../../environments/environment';
 
@@ -34,6 +36,7 @@ export class UserListPage implements OnInit, OnDestroy {
 
   constructor(
     private userService: UserService,
+    private importJobService: ImportJobService,
     private authService: AuthService,
     private alertCtrl: AlertController,
     private loadingCtrl: LoadingController,
@@ -186,17 +189,22 @@ export class UserListPage implements OnInit, OnDestroy {
       const loading = await this.loadingCtrl.create({ message: 'Procesando Excel de Usuarios...' });
       await loading.present();
 
+      // La carga se procesa en segundo plano: se consulta el trabajo hasta que termina
       this.userService.uploadUsersExcel(file)
-        .pipe(takeUntil(this.destroy$))
+        .pipe(
+          switchMap((accepted: ImportJob) => this.importJobService.watchJob(accepted.jobId)),
+          tap(job => { loading.message = this.importJobService.progressMessage(job); }),
+          last(),
+          takeUntil(this.destroy$)
+        )
         .subscribe({
-          next: async (res) => {
+          next: async (job: ImportJob) => {
             await loading.dismiss();
-            await this.presentToast(res.message || 'Carga masiva exitosa', 'success');
-            this.loadUsers();
+            await this.importJobService.showResult(job, () => this.loadUsers(), 'errores_usuarios');
           },
           error: async (err) => {
             await loading.dismiss();
-            await this.presentToast(err.error?.error || 'Error al subir el archivo Excel', 'danger');
+            await this.presentToast(err.error?.error || err.message || 'Error al subir el archivo Excel', 'danger');
           }
         });
 
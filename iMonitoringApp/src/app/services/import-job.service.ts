@@ -0,0 +1,106 @@
+import { Injectable } from '@angular/core';
+import { HttpClient, HttpErrorResponse } from '@angular/common/http';
+import { AlertController, ToastController } from '@ionic/angular';
+import { Observable, throwError, timer } from 'rxjs';
+import { catchError, exhaustMap, takeWhile } from 'rxjs/operators';
+import { environment } from '../../environments/environment';
+import { ImportJob } from '../models/import-job.model';
+
+@Injectable({
+  providedIn: 'root'
+})
+export class ImportJobService {
+  private apiUrl = `${environment.apiUrl}/import-jobs`;
+  // Intervalo entre consultas de avance de una carga
+  private readonly POLL_INTERVAL_MS = 1500;
+
+  constructor(
+    private http: HttpClient,
+    private alertCtrl: AlertController,
+    private toastCtrl: ToastController
+  ) { }
+
+  private handleError(error: HttpErrorResponse, operation: string) {
+    const serverErrorMessage = error.error?.message || error.error?.error || error.message;
+    const errorMessage = `Error en ${operation}: ${serverErrorMessage || 'Error del servidor'}`;
+    console.error(`[ImportJobService] ${errorMessage}`, error);
+    return throwError(() => new Error(errorMessage));
+  }
+
+  getJob(jobId: string): Observable<ImportJob> {
+    return this.http.get<ImportJob>(`${this.apiUrl}/${jobId}`)
+      .pipe(catchError(err => this.handleError(err, 'consultar la carga masiva')));
+  }
+
+  // Emite el estado de la carga en cada consulta y termina con el estado final (COMPLETADO, FALLIDO o CANCELADO)
+  watchJob(jobId: string): Observable<ImportJob> {
+    return timer(0, this.POLL_INTERVAL_MS).pipe(
+      exhaustMap(() => this.getJob(jobId)),
+      takeWhile(job => job.status === 'PENDIENTE' || job.status === 'EN_PROCESO', true)
+    );
+  }
+
+  downloadErrors(jobId: string): Observable<Blob> {
+    return this.http.get(`${this.apiUrl}/${jobId}/errors`, { responseType: 'blob' })
+      .pipe(catchError(err => this.handleError(err, 'descargar el reporte de errores')));
+  }
+
+  progressMessage(job: ImportJob): string {
+    if (job.status === 'PENDIENTE') {
+      return 'Archivo recibido, en cola...';
+    }
+    return `Procesando... ${job.rowsRead} filas leídas (${job.failed} con error)`;
+  }
+
+  resultMessage(job: ImportJob): string {
+    return `${job.inserted} creados, ${job.updated} actualizados, ${job.unchanged} sin cambios y ${job.failed} con error.`;
+  }
+
+  // Resultado final de una carga: recarga la lista solo si terminó, y ofrece el CSV de errores si hubo filas fallidas
+  async showResult(job: ImportJob, reload: () => void, errorsFilePrefix: string) {
+    if (job.status === 'FALLIDO') {
+      await this.presentToast(job.error || 'La carga masiva falló; no se guardó ninguna fila.', 'danger');
+      return;
+    }
+    if (job.status === 'CANCELADO') {
+      await this.presentToast(job.message || 'La carga masiva fue cancelada.', 'warning');
+      return;
+    }
+
+    reload();
+    if (job.failed > 0) {
+      const alert = await this.alertCtrl.create({
+        header: 'Carga terminada con errores',
+        message: this.resultMessage(job),
+        buttons: [
+          { text: 'Cerrar', role: 'cancel' },
+          { text: 'Descargar errores', handler: () => this.saveErrors(job, errorsFilePrefix) }
+        ]
+      });
+      await alert.present();
+    } else {
+      await this.presentToast(`Carga masiva exitosa: ${this.resultMessage(job)}`, 'success');
+    }
+  }
+
+  private saveErrors(job: ImportJob, filePrefix: string) {
+    this.downloadErrors(job.jobId).subscribe({
+      next: (blob) => {
+        const url = window.URL.createObjectURL(blob);
+        const a = document.createElement('a');
+        a.href = url;
+        a.download = `${filePrefix}_${job.jobId.substring(0, 8)}.csv`;
+        document.body.appendChild(a);
+        a.click();
+        document.body.removeChild(a);
+        window.URL.revokeObjectURL(url);
+      },
+      error: async (err) => await this.presentToast(err.message || 'Error al descargar el reporte de errores.', 'danger')
+    });
+  }
+
+  private async presentToast(message: string, color: 'success' | 'danger' | 'warning') {
+    const toast = await this.toastCtrl.create({ message, duration: 3000, color, position: 'top' });
+    await toast.present();
+  }
+}